@@ -0,0 +1,24 @@
+package com.tiagomaniero.essentials.domain;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DatabaseUserBenchmark {
+
+    private final DatabaseUser databaseUser = DatabaseUser.builder()
+            .name("Administrador")
+            .username("admin")
+            .authorities("ROLE_USER,ROLE_ADMIN")
+            .build();
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return databaseUser.getAuthorities();
+    }
+}
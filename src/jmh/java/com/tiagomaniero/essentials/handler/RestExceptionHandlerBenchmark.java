@@ -0,0 +1,51 @@
+package com.tiagomaniero.essentials.handler;
+
+import com.tiagomaniero.essentials.config.AnimeProperties;
+import com.tiagomaniero.essentials.exception.BadRequestException;
+import com.tiagomaniero.essentials.exception.BadRequestExceptionDetails;
+import com.tiagomaniero.essentials.requests.AnimePostRequestBody;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RestExceptionHandlerBenchmark {
+
+    private final RestExceptionHandler restExceptionHandler = new RestExceptionHandler(new AnimeProperties());
+    private final BadRequestException badRequestException = new BadRequestException("Anime ID not found");
+    private final WebRequest webRequest = new ServletWebRequest(new MockHttpServletRequest());
+    private MethodArgumentNotValidException methodArgumentNotValidException;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        BeanPropertyBindingResult bindingResult = new BeanPropertyBindingResult(new AnimePostRequestBody(), "anime");
+        bindingResult.addError(new FieldError("anime", "name", "The name cannot be empty"));
+        MethodParameter parameter = new MethodParameter(
+                RestExceptionHandlerBenchmark.class.getDeclaredMethod("target", AnimePostRequestBody.class), 0);
+        methodArgumentNotValidException = new MethodArgumentNotValidException(parameter, bindingResult);
+    }
+
+    @Benchmark
+    public ResponseEntity<BadRequestExceptionDetails> handleBadRequestException() {
+        return restExceptionHandler.handleBadRequestException(badRequestException);
+    }
+
+    @Benchmark
+    public ResponseEntity<Object> handleMethodArgumentNotValid() throws Exception {
+        return restExceptionHandler.handleException(methodArgumentNotValidException, webRequest);
+    }
+
+    @SuppressWarnings("unused")
+    private void target(AnimePostRequestBody animePostRequestBody) {
+    }
+}
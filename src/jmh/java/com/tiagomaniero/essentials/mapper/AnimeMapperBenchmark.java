@@ -0,0 +1,30 @@
+package com.tiagomaniero.essentials.mapper;
+
+import com.tiagomaniero.essentials.domain.Anime;
+import com.tiagomaniero.essentials.requests.AnimePostRequestBody;
+import com.tiagomaniero.essentials.requests.AnimePutRequestBody;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AnimeMapperBenchmark {
+
+    private final AnimePostRequestBody animePostRequestBody = new AnimePostRequestBody("Hajime no Ippo");
+    private final AnimePutRequestBody animePutRequestBody = AnimePutRequestBody.builder()
+            .id(1L)
+            .name("Hajime no Ippo 2")
+            .build();
+
+    @Benchmark
+    public Anime toAnimeFromPostRequestBody() {
+        return AnimeMapper.INSTANCE.toAnime(animePostRequestBody);
+    }
+
+    @Benchmark
+    public Anime toAnimeFromPutRequestBody() {
+        return AnimeMapper.INSTANCE.toAnime(animePutRequestBody);
+    }
+}
@@ -0,0 +1,81 @@
+package com.tiagomaniero.essentials.service;
+
+import com.tiagomaniero.essentials.EssentialsApplication;
+import com.tiagomaniero.essentials.domain.Anime;
+import com.tiagomaniero.essentials.requests.AnimePostRequestBody;
+import com.tiagomaniero.essentials.wrapper.CursorPage;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Runs the service against an in-memory H2 database, so the numbers include JPA and JDBC but not the network.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AnimeServiceBenchmark {
+
+    private static final int ANIMES = 10_000;
+
+    private ConfigurableApplicationContext context;
+    private AnimeService animeService;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(EssentialsApplication.class)
+                .run("--spring.main.banner-mode=off",
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--logging.level.root=warn",
+                        "--logging.level.org.hibernate.SQL=warn",
+                        "--logging.level.org.hibernate.type=warn");
+        animeService = context.getBean(AnimeService.class);
+
+        List<AnimePostRequestBody> animes = IntStream.range(0, ANIMES)
+                .mapToObj(i -> new AnimePostRequestBody("Anime " + i))
+                .collect(Collectors.toList());
+        context.getBean(AnimeBatchService.class).saveAll(animes);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Anime findById() {
+        return animeService.findByIdorThrowBadRequest(ThreadLocalRandom.current().nextLong(1, ANIMES + 1));
+    }
+
+    @Benchmark
+    public Page<Anime> listAll() {
+        return animeService.listAll(PageRequest.of(ThreadLocalRandom.current().nextInt(ANIMES / 20), 20));
+    }
+
+    @Benchmark
+    public CursorPage<Anime> listAfter() {
+        return animeService.listAfter(null, 20, false);
+    }
+
+    @Benchmark
+    public List<Anime> findByName() {
+        return animeService.findByName("Anime " + ThreadLocalRandom.current().nextInt(ANIMES));
+    }
+
+    @Benchmark
+    public Page<Anime> search() {
+        return animeService.search("anime " + ThreadLocalRandom.current().nextInt(ANIMES), PageRequest.of(0, 5));
+    }
+}
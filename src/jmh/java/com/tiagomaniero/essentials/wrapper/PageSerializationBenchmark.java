@@ -0,0 +1,53 @@
+package com.tiagomaniero.essentials.wrapper;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tiagomaniero.essentials.domain.Anime;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PageSerializationBenchmark {
+
+    private static final TypeReference<PageableResponse<Anime>> PAGEABLE_RESPONSE = new TypeReference<>() {
+    };
+
+    @Param({"5", "20", "100"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+    private Page<Anime> page;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        List<Anime> animes = LongStream.rangeClosed(1, size)
+                .mapToObj(id -> Anime.builder().id(id).name("Anime " + id).build())
+                .collect(Collectors.toList());
+        page = new PageImpl<>(animes, PageRequest.of(0, size), 10_000);
+        json = objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public PageableResponse<Anime> deserializePageableResponse() throws IOException {
+        return objectMapper.readValue(json, PAGEABLE_RESPONSE);
+    }
+}
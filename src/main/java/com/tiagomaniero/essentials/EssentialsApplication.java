@@ -5,9 +5,13 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.actuate.autoconfigure.metrics.MeterRegistryCustomizer;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
+@EnableScheduling
 public class EssentialsApplication {
 
 	public static void main(String[] args) {
@@ -17,7 +21,7 @@ public class EssentialsApplication {
 	//configuração do grafana
 	@Bean
 	MeterRegistryCustomizer<MeterRegistry> configurer(
-			@Value("${pring.application.name}") String applicationName) {
+			@Value("${spring.application.name}") String applicationName) {
 		return (registry) -> registry.config().commonTags("application",applicationName);
 	}
 
@@ -0,0 +1,104 @@
+package com.tiagomaniero.essentials.async;
+
+import com.tiagomaniero.essentials.config.AnimeProperties;
+import com.tiagomaniero.essentials.statistics.RequestQueryStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Bounded pool that runs the blocking database work of AnimeController, so request threads are released
+ * while JDBC waits. Once anime.async.concurrency calls are running and anime.async.queue-capacity are waiting,
+ * new work is rejected (503) instead of piling up. Queued, active and wait/run times are exported as
+ * executor.* meters tagged name=anime.db.
+ * <p>
+ * Each call also takes a permit from the bulkhead of its OperationClass for as long as it is queued or running,
+ * so a burst of scans cannot starve lookups and writes (see anime.bulkhead).
+ */
+@Component
+public class AnimeDbExecutor implements DisposableBean {
+
+    public enum OperationClass {
+        /** single-row lookups and bounded searches */
+        READ,
+        /** full listings and exports */
+        SCAN,
+        WRITE
+    }
+
+    private final ThreadPoolExecutor threadPoolExecutor;
+    private final ExecutorService executorService;
+    private final Map<OperationClass, Bulkhead> bulkheads = new EnumMap<>(OperationClass.class);
+
+    public AnimeDbExecutor(AnimeProperties animeProperties, MeterRegistry meterRegistry) {
+        AnimeProperties.Async properties = animeProperties.getAsync();
+        this.threadPoolExecutor = new ThreadPoolExecutor(
+                properties.getConcurrency(),
+                properties.getConcurrency(),
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                new CustomizableThreadFactory("anime-db-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.threadPoolExecutor.allowCoreThreadTimeOut(true);
+        // the SecurityContext follows the work, replica stickiness is decided per user
+        this.executorService = new DelegatingSecurityContextExecutorService(
+                ExecutorServiceMetrics.monitor(meterRegistry, threadPoolExecutor, "anime.db"));
+
+        AnimeProperties.Bulkhead bulkhead = animeProperties.getBulkhead();
+        bulkheads.put(OperationClass.READ, new Bulkhead("read", bulkhead.getRead(), bulkhead.getMaxWait(), meterRegistry));
+        bulkheads.put(OperationClass.SCAN, new Bulkhead("scan", bulkhead.getScan(), bulkhead.getMaxWait(), meterRegistry));
+        bulkheads.put(OperationClass.WRITE, new Bulkhead("write", bulkhead.getWrite(), bulkhead.getMaxWait(), meterRegistry));
+    }
+
+    /**
+     * @throws RejectedExecutionException when the operation's bulkhead or the pool and its queue are full
+     */
+    public <T> CompletableFuture<T> supply(OperationClass operation, Supplier<T> supplier) {
+        acquire(operation);
+        try {
+            return CompletableFuture.supplyAsync(RequestQueryStats.propagate(supplier), executorService)
+                    .whenComplete((result, throwable) -> release(operation));
+        } catch (RejectedExecutionException e) {
+            release(operation);
+            throw e;
+        }
+    }
+
+    public CompletableFuture<Void> run(OperationClass operation, Runnable runnable) {
+        return supply(operation, () -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    /**
+     * For database work that runs outside this pool, such as streamed responses. Pair with release.
+     *
+     * @throws RejectedExecutionException when the operation's bulkhead is full
+     */
+    public void acquire(OperationClass operation) {
+        bulkheads.get(operation).acquire();
+    }
+
+    public void release(OperationClass operation) {
+        bulkheads.get(operation).release();
+    }
+
+    @Override
+    public void destroy() {
+        threadPoolExecutor.shutdown();
+    }
+}
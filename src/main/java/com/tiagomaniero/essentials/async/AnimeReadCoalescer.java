@@ -0,0 +1,47 @@
+package com.tiagomaniero.essentials.async;
+
+import com.tiagomaniero.essentials.config.AnimeProperties;
+import com.tiagomaniero.essentials.domain.Anime;
+import com.tiagomaniero.essentials.event.AnimeChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight for the hot lookups of AnimeController. It sits in front of {@link AnimeDbExecutor}, so requests
+ * waiting on a shared read hold no worker thread, bulkhead permit or connection. A not found read fails every
+ * waiter with the same BadRequestException.
+ */
+@Component
+public class AnimeReadCoalescer {
+
+    private final boolean enabled;
+    private final SingleFlight<Long, Anime> findById;
+    private final SingleFlight<String, List<Anime>> findByName;
+
+    public AnimeReadCoalescer(AnimeProperties animeProperties, MeterRegistry meterRegistry) {
+        AnimeProperties.SingleFlight properties = animeProperties.getSingleFlight();
+        this.enabled = properties.isEnabled();
+        this.findById = new SingleFlight<>("findById", properties.getMaxWait(), meterRegistry);
+        this.findByName = new SingleFlight<>("findByName", properties.getMaxWait(), meterRegistry);
+    }
+
+    public CompletableFuture<Anime> findById(Long id, Supplier<CompletableFuture<Anime>> call) {
+        return enabled ? findById.execute(id, call) : call.get();
+    }
+
+    public CompletableFuture<List<Anime>> findByName(String name, Supplier<CompletableFuture<List<Anime>>> call) {
+        return enabled ? findByName.execute(name, call) : call.get();
+    }
+
+    // uma leitura que começou antes do commit pode trazer o valor antigo, então não junta mais ninguém nela
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAnimeChanged(AnimeChangedEvent event) {
+        findById.forget(event.getId());
+        findByName.forgetAll();
+    }
+}
@@ -0,0 +1,66 @@
+package com.tiagomaniero.essentials.async;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps how many calls of one AnimeDbExecutor.OperationClass may hold a database thread (running or queued) at once,
+ * so one kind of work cannot take every pooled connection. Publishes anime.bulkhead.* meters tagged by name.
+ */
+class Bulkhead {
+
+    private final String name;
+    private final int maxConcurrent;
+    private final Duration maxWait;
+    private final Semaphore semaphore;
+    private final Counter rejected;
+
+    Bulkhead(String name, int maxConcurrent, Duration maxWait, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.maxWait = maxWait;
+        this.semaphore = new Semaphore(maxConcurrent);
+        this.rejected = Counter.builder("anime.bulkhead.rejected")
+                .tag("name", name)
+                .register(meterRegistry);
+        Gauge.builder("anime.bulkhead.in.use", this, Bulkhead::inUse)
+                .tag("name", name)
+                .register(meterRegistry);
+        Gauge.builder("anime.bulkhead.max", this, bulkhead -> bulkhead.maxConcurrent)
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * @throws RejectedExecutionException when no permit frees up within anime.bulkhead.max-wait
+     */
+    void acquire() {
+        boolean acquired;
+        try {
+            acquired = maxWait.isZero()
+                    ? semaphore.tryAcquire()
+                    : semaphore.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejected.increment();
+            throw new RejectedExecutionException("Bulkhead " + name + " is full (" + maxConcurrent + " concurrent calls)");
+        }
+    }
+
+    void release() {
+        semaphore.release();
+    }
+
+    int inUse() {
+        return maxConcurrent - semaphore.availablePermits();
+    }
+}
@@ -0,0 +1,93 @@
+package com.tiagomaniero.essentials.async;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Lets concurrent calls for the same key share one in-flight call: the first caller runs it, the others get
+ * its result or its exception. Nothing is kept once the call completes, so this is not a cache.
+ */
+public class SingleFlight<K, V> {
+
+    private final String name;
+    private final Duration maxWait;
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter leaders;
+    private final Counter coalesced;
+    private final Counter timeouts;
+
+    /**
+     * @param maxWait longest a caller waits on a call it did not start, zero to wait for as long as it runs
+     */
+    public SingleFlight(String name, Duration maxWait, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.maxWait = maxWait;
+        this.leaders = counter("anime.singleflight.leaders", name, meterRegistry);
+        this.coalesced = counter("anime.singleflight.coalesced", name, meterRegistry);
+        this.timeouts = counter("anime.singleflight.timeouts", name, meterRegistry);
+        meterRegistry.gauge("anime.singleflight.in.flight",
+                Tags.of("name", name), inFlight, Map::size);
+    }
+
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> call) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing);
+        }
+        leaders.increment();
+        try {
+            call.get().whenComplete((value, error) -> {
+                //sai do mapa antes de completar, quem chegar depois faz uma chamada nova
+                inFlight.remove(key, flight);
+                if (error != null) {
+                    flight.completeExceptionally(error);
+                } else {
+                    flight.complete(value);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+        }
+        return flight.copy();
+    }
+
+    /**
+     * Lets the next caller for key start a new call, callers already waiting still get the running one.
+     */
+    public void forget(K key) {
+        inFlight.remove(key);
+    }
+
+    public void forgetAll() {
+        inFlight.clear();
+    }
+
+    private CompletableFuture<V> await(CompletableFuture<V> flight) {
+        CompletableFuture<V> waiter = flight.copy();
+        if (!maxWait.isZero() && !waiter.isDone()) {
+            CompletableFuture.delayedExecutor(maxWait.toMillis(), TimeUnit.MILLISECONDS).execute(() -> {
+                if (waiter.completeExceptionally(new RejectedExecutionException(
+                        "Waited " + maxWait.toMillis() + "ms for the in-flight " + name + " call"))) {
+                    timeouts.increment();
+                }
+            });
+        }
+        return waiter;
+    }
+
+    private static Counter counter(String metric, String name, MeterRegistry meterRegistry) {
+        return Counter.builder(metric).tag("name", name).register(meterRegistry);
+    }
+}
@@ -0,0 +1,67 @@
+package com.tiagomaniero.essentials.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.tiagomaniero.essentials.config.AnimeProperties;
+import com.tiagomaniero.essentials.domain.Anime;
+import com.tiagomaniero.essentials.event.AnimeChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Read-through cache for animes by id. Misses are cached too (as an empty Optional) with a shorter TTL
+ * so repeated lookups of unknown ids do not reach the database.
+ */
+@Component
+public class AnimeCache {
+
+    private final Cache<Long, Optional<Anime>> cache;
+
+    public AnimeCache(AnimeProperties animeProperties, MeterRegistry meterRegistry) {
+        AnimeProperties.Cache properties = animeProperties.getCache();
+        long ttl = properties.getTtl().toNanos();
+        long notFoundTtl = properties.getNotFoundTtl().toNanos();
+
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfter(new Expiry<Long, Optional<Anime>>() {
+                    @Override
+                    public long expireAfterCreate(Long id, Optional<Anime> anime, long currentTime) {
+                        return anime.isPresent() ? ttl : notFoundTtl;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Long id, Optional<Anime> anime, long currentTime, long currentDuration) {
+                        return expireAfterCreate(id, anime, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(Long id, Optional<Anime> anime, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "animes");
+    }
+
+    public Optional<Anime> get(Long id, Function<Long, Optional<Anime>> loader) {
+        return cache.get(id, loader);
+    }
+
+    public void evict(Long id) {
+        cache.invalidate(id);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAnimeChanged(AnimeChangedEvent event) {
+        evict(event.getId());
+    }
+}
@@ -0,0 +1,87 @@
+package com.tiagomaniero.essentials.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tiagomaniero.essentials.config.AnimeProperties;
+import com.tiagomaniero.essentials.config.AnimeWebMvcConfigurer;
+import com.tiagomaniero.essentials.domain.Anime;
+import com.tiagomaniero.essentials.event.AnimeChangedEvent;
+import com.tiagomaniero.essentials.wrapper.CachedPage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Pages of the list endpoint keyed by page, size and sort, kept with their encoded bodies (see
+ * {@link CachedPage}). Any anime write empties it, the ttl bounds how long a write of another node goes
+ * unnoticed. The fallback page requested without parameters is pinned outside the size bound.
+ */
+@Component
+public class AnimePageCache {
+
+    private final boolean enabled;
+    private final Cache<Pageable, CachedPage<Anime>> cache;
+    private final Cache<Pageable, CachedPage<Anime>> fallback;
+    private final AtomicLong generation = new AtomicLong();
+
+    public AnimePageCache(AnimeProperties animeProperties, MeterRegistry meterRegistry) {
+        AnimeProperties.PageCache properties = animeProperties.getPageCache();
+        this.enabled = properties.isEnabled();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+        this.fallback = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getTtl())
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "anime-pages");
+    }
+
+    /**
+     * @param loader reads the page on a miss, its result is only kept when no write happened meanwhile
+     */
+    public CompletableFuture<Page<Anime>> get(Pageable pageable, Supplier<CompletableFuture<Page<Anime>>> loader) {
+        if (!enabled || pageable == null || pageable.isUnpaged()) {
+            return loader.get();
+        }
+        // PageRequest tem equals por page, size e sort, serve direto como chave
+        Cache<Pageable, CachedPage<Anime>> target = AnimeWebMvcConfigurer.FALLBACK_PAGEABLE.equals(pageable) ? fallback : cache;
+        CachedPage<Anime> cached = target.getIfPresent(pageable);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        long loadedAt = generation.get();
+        return loader.get().thenApply(page -> {
+            CachedPage<Anime> cachedPage = new CachedPage<>(page);
+            target.put(pageable, cachedPage);
+            if (generation.get() != loadedAt) {
+                target.asMap().remove(pageable, cachedPage);
+            }
+            return cachedPage;
+        });
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+        fallback.invalidateAll();
+    }
+
+    // depois do read model aplicar o commit, senão uma página montada do snapshot antigo ficaria no cache até o ttl
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAnimeChanged(AnimeChangedEvent event) {
+        invalidateAll();
+    }
+}
@@ -0,0 +1,132 @@
+package com.tiagomaniero.essentials.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.tiagomaniero.essentials.wrapper.CachedPage;
+import org.springframework.boot.web.server.Compression;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.lang.NonNull;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes a {@link CachedPage} from its encoded bytes, encoding it with the Jackson converter of the negotiated
+ * media type only the first time. When the client accepts gzip and the body passes the server compression
+ * threshold the pre-gzipped bytes are sent, Tomcat leaves a response that already has a Content-Encoding alone.
+ */
+public class CachedPageHttpMessageConverter extends AbstractHttpMessageConverter<CachedPage<?>> {
+
+    private final List<AbstractJackson2HttpMessageConverter> delegates;
+    private final Compression compression;
+
+    public CachedPageHttpMessageConverter(List<AbstractJackson2HttpMessageConverter> delegates, Compression compression) {
+        super(delegates.stream()
+                .flatMap(delegate -> delegate.getSupportedMediaTypes().stream())
+                .distinct()
+                .toArray(MediaType[]::new));
+        this.delegates = delegates;
+        this.compression = compression;
+    }
+
+    @Override
+    protected boolean supports(@NonNull Class<?> clazz) {
+        return CachedPage.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    @NonNull
+    protected CachedPage<?> readInternal(@NonNull Class<? extends CachedPage<?>> clazz, @NonNull HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("CachedPageHttpMessageConverter is write-only", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(@NonNull CachedPage<?> page, @NonNull HttpOutputMessage outputMessage)
+            throws IOException {
+        HttpHeaders headers = outputMessage.getHeaders();
+        MediaType mediaType = headers.getContentType();
+        CachedPage.Encoded encoded;
+        try {
+            encoded = page.encoded(new MediaType(mediaType.getType(), mediaType.getSubtype()),
+                    type -> encode(page, type));
+        } catch (UncheckedIOException e) {
+            throw new HttpMessageNotWritableException("Could not encode the page as " + mediaType, e.getCause());
+        }
+        byte[] body = encoded.getBody();
+        vary(headers, HttpHeaders.ACCEPT);
+        if (encoded.getGzipped() != null) {
+            vary(headers, HttpHeaders.ACCEPT_ENCODING);
+            if (acceptsGzip()) {
+                headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+                body = encoded.getGzipped();
+            }
+        }
+        outputMessage.getBody().write(body);
+    }
+
+    // o AnimeWebMvcConfigurer já pode ter mandado o Vary: Accept, não repete
+    private static void vary(HttpHeaders headers, String requestHeader) {
+        if (!headers.getVary().contains(requestHeader)) {
+            headers.add(HttpHeaders.VARY, requestHeader);
+        }
+    }
+
+    private CachedPage.Encoded encode(CachedPage<?> page, MediaType mediaType) {
+        AbstractJackson2HttpMessageConverter delegate = delegates.stream()
+                .filter(converter -> converter.canWrite(page.getClass(), mediaType))
+                .findFirst()
+                .orElseThrow(() -> new UncheckedIOException(new IOException("No Jackson converter for " + mediaType)));
+        try {
+            byte[] body = delegate.getObjectMapper().writeValueAsBytes(page);
+            return new CachedPage.Encoded(body, compressible(mediaType, body.length) ? gzip(body) : null);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private boolean compressible(MediaType mediaType, int length) {
+        return compression != null && compression.getEnabled()
+                && length >= compression.getMinResponseSize().toBytes()
+                && Arrays.stream(compression.getMimeTypes())
+                .map(MediaType::parseMediaType)
+                .anyMatch(type -> type.includes(mediaType));
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length / 4);
+        try (OutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static boolean acceptsGzip() {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes)) {
+            return false;
+        }
+        String acceptEncoding = ((ServletRequestAttributes) RequestContextHolder.getRequestAttributes())
+                .getRequest().getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+    }
+}
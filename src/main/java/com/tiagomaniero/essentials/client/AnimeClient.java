@@ -0,0 +1,385 @@
+package com.tiagomaniero.essentials.client;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tiagomaniero.essentials.domain.Anime;
+import com.tiagomaniero.essentials.requests.AnimePatchRequestBody;
+import com.tiagomaniero.essentials.requests.AnimePostRequestBody;
+import com.tiagomaniero.essentials.requests.AnimePutRequestBody;
+import com.tiagomaniero.essentials.wrapper.AnimeBatchItemResult;
+import com.tiagomaniero.essentials.wrapper.AnimeChangePage;
+import com.tiagomaniero.essentials.wrapper.CursorPage;
+import com.tiagomaniero.essentials.wrapper.PageableResponse;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Typed client for {@code /api/v1/animes}. An instance keeps a pooled keep-alive HttpClient, so create one and
+ * share it. Every call is asynchronous, errors complete the future with an {@link AnimeClientException} and GET
+ * responses carrying an ETag are cached and revalidated with If-None-Match.
+ */
+@Log4j2
+public class AnimeClient {
+
+    private static final String ANIMES = "/api/v1/animes";
+    private static final String JSON = "application/json";
+    private static final String NDJSON = "application/x-ndjson";
+
+    private static final TypeReference<Anime> ANIME = new TypeReference<>() {};
+    private static final TypeReference<List<Anime>> ANIME_LIST = new TypeReference<>() {};
+    private static final TypeReference<PageableResponse<Anime>> ANIME_PAGE = new TypeReference<>() {};
+    private static final TypeReference<CursorPage<Anime>> ANIME_CURSOR_PAGE = new TypeReference<>() {};
+    private static final TypeReference<List<AnimeBatchItemResult>> BATCH_RESULTS = new TypeReference<>() {};
+    private static final TypeReference<AnimeChangePage> CHANGE_PAGE = new TypeReference<>() {};
+
+    private final AnimeClientOptions options;
+    private final String baseUri;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final Cache<URI, CachedResponse> cache;
+
+    public AnimeClient(AnimeClientOptions options) {
+        this.options = options;
+        this.baseUri = options.getBaseUri().toString().replaceAll("/+$", "");
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .version(options.getVersion())
+                .connectTimeout(options.getConnectTimeout());
+        if (options.getExecutor() != null) {
+            builder.executor(options.getExecutor());
+        }
+        this.httpClient = builder.build();
+        this.objectMapper = new ObjectMapper()
+                .findAndRegisterModules()
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        this.cache = options.getCacheSize() > 0
+                ? Caffeine.newBuilder().maximumSize(options.getCacheSize()).build()
+                : null;
+    }
+
+    public CompletableFuture<PageableResponse<Anime>> list(int page, int size) {
+        return get(uri(ANIMES + "?page={page}&size={size}", page, size), ANIME_PAGE);
+    }
+
+    public CompletableFuture<CursorPage<Anime>> listByCursor(String after, int size, boolean count) {
+        URI uri = after == null
+                ? uri(ANIMES + "/cursor?size={size}&count={count}", size, count)
+                : uri(ANIMES + "/cursor?size={size}&count={count}&after={after}", size, count, after);
+        return get(uri, ANIME_CURSOR_PAGE);
+    }
+
+    public CompletableFuture<List<Anime>> listAll() {
+        return get(uri(ANIMES + "/all"), ANIME_LIST);
+    }
+
+    /**
+     * Every anime in id order. Pages of pageSize are read through the cursor endpoint as the stream is consumed,
+     * the next page is requested while the current one is being read.
+     */
+    public Stream<Anime> iterateAll(int pageSize) {
+        return StreamSupport.stream(new CursorSpliterator(pageSize), false);
+    }
+
+    /**
+     * Reads {@code /all/stream} as it arrives. The stream holds the connection until it is closed and is not
+     * retried.
+     */
+    public CompletableFuture<Stream<Anime>> streamAll() {
+        HttpRequest.Builder request = request(uri(ANIMES + "/all/stream"), NDJSON).GET();
+        options.getAuth().apply(request);
+        return httpClient.sendAsync(request.build(), HttpResponse.BodyHandlers.ofInputStream())
+                .thenApply(response -> {
+                    try {
+                        InputStream body = isGzipped(response) ? new GZIPInputStream(response.body()) : response.body();
+                        if (response.statusCode() >= 400) {
+                            try (body) {
+                                throw new AnimeClientException(response.statusCode(),
+                                        new String(body.readAllBytes(), StandardCharsets.UTF_8));
+                            }
+                        }
+                        MappingIterator<Anime> animes = objectMapper.readerFor(Anime.class).readValues(body);
+                        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(animes,
+                                        Spliterator.ORDERED | Spliterator.NONNULL), false)
+                                .onClose(() -> close(animes));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    /**
+     * Changes after since, pass the returned next as since on the following call.
+     */
+    public CompletableFuture<AnimeChangePage> changes(long since, int limit) {
+        return get(uri(ANIMES + "/changes?since={since}&limit={limit}", since, limit), CHANGE_PAGE);
+    }
+
+    public CompletableFuture<Anime> findById(long id) {
+        return get(uri(ANIMES + "/{id}", id), ANIME);
+    }
+
+    /**
+     * Fetches the animes concurrently, at most batchConcurrency at a time, in the order of the ids.
+     */
+    public CompletableFuture<List<Anime>> findAllById(List<Long> ids) {
+        Anime[] animes = new Anime[ids.size()];
+        AtomicInteger next = new AtomicInteger();
+        CompletableFuture<?>[] lanes = new CompletableFuture<?>[Math.min(options.getBatchConcurrency(), ids.size())];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = findNextById(ids, animes, next);
+        }
+        return CompletableFuture.allOf(lanes).thenApply(nothing -> Arrays.asList(animes));
+    }
+
+    public CompletableFuture<Anime> findByIdAsAdmin(long id) {
+        return get(uri(ANIMES + "/id/{id}", id), ANIME);
+    }
+
+    public CompletableFuture<List<Anime>> findByName(String name) {
+        return get(uri(ANIMES + "/find?name={name}", name), ANIME_LIST);
+    }
+
+    public CompletableFuture<PageableResponse<Anime>> search(String name, int page, int size) {
+        return get(uri(ANIMES + "/search?name={name}&page={page}&size={size}", name, page, size), ANIME_PAGE);
+    }
+
+    public CompletableFuture<Anime> save(AnimePostRequestBody animePostRequestBody) {
+        return send("POST", uri(ANIMES), animePostRequestBody, null, ANIME);
+    }
+
+    public CompletableFuture<List<AnimeBatchItemResult>> saveAll(List<AnimePostRequestBody> animePostRequestBodies) {
+        return send("POST", uri(ANIMES + "/batch"), animePostRequestBodies, null, BATCH_RESULTS);
+    }
+
+    public CompletableFuture<Void> delete(long id) {
+        return send("DELETE", uri(ANIMES + "/admin/{id}", id), null, null, null);
+    }
+
+    /**
+     * @param expectedVersion version the anime was read with, the server answers 412 when it changed since;
+     *                        null replaces unconditionally
+     */
+    public CompletableFuture<Void> replace(AnimePutRequestBody animePutRequestBody, Long expectedVersion) {
+        return send("PUT", uri(ANIMES), animePutRequestBody,
+                ifMatch(animePutRequestBody.getId(), expectedVersion), null);
+    }
+
+    /**
+     * @param expectedVersion same as in {@link #replace(AnimePutRequestBody, Long)}
+     */
+    public CompletableFuture<Void> patch(long id, AnimePatchRequestBody animePatchRequestBody, Long expectedVersion) {
+        return send("PATCH", uri(ANIMES + "/{id}", id), animePatchRequestBody, ifMatch(id, expectedVersion), null);
+    }
+
+    private CompletableFuture<Void> findNextById(List<Long> ids, Anime[] animes, AtomicInteger next) {
+        int index = next.getAndIncrement();
+        if (index >= ids.size()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return findById(ids.get(index)).thenCompose(anime -> {
+            animes[index] = anime;
+            return findNextById(ids, animes, next);
+        });
+    }
+
+    private <T> CompletableFuture<T> get(URI uri, TypeReference<T> type) {
+        HttpRequest.Builder request = request(uri, JSON).GET();
+        CachedResponse cached = cache == null ? null : cache.getIfPresent(uri);
+        if (cached != null) {
+            request.header("If-None-Match", cached.eTag);
+        }
+        return execute(request, true, 0).thenApply(response -> {
+            if (response.statusCode() == 304 && cached != null) {
+                return read(cached.body, type);
+            }
+            byte[] body = body(response);
+            if (cache != null) {
+                response.headers().firstValue("ETag")
+                        .ifPresent(eTag -> cache.put(uri, new CachedResponse(eTag, body)));
+            }
+            return read(body, type);
+        });
+    }
+
+    private <T> CompletableFuture<T> send(String method, URI uri, Object requestBody, String ifMatch, TypeReference<T> type) {
+        HttpRequest.Builder request = request(uri, JSON);
+        if (requestBody == null) {
+            request.method(method, HttpRequest.BodyPublishers.noBody());
+        } else {
+            request.header("Content-Type", JSON).method(method, HttpRequest.BodyPublishers.ofByteArray(write(requestBody)));
+        }
+        if (ifMatch != null) {
+            request.header("If-Match", ifMatch);
+        }
+        boolean idempotent = !method.equals("POST") && !method.equals("PATCH");
+        return execute(request, idempotent, 0).thenApply(response -> {
+            byte[] body = body(response);
+            return type == null ? null : read(body, type);
+        });
+    }
+
+    private CompletableFuture<HttpResponse<byte[]>> execute(HttpRequest.Builder request, boolean idempotent, int attempt) {
+        options.getAuth().apply(request);
+        return httpClient.sendAsync(request.build(), HttpResponse.BodyHandlers.ofByteArray())
+                .handle((response, error) -> {
+                    if (attempt < options.getMaxRetries()) {
+                        //com Retry-After o 503 vem dos bulkheads e o 429 do rate limit, que rejeitam antes de chegar no banco;
+                        //sem ele pode ser timeout de request assíncrona depois do commit, então só repete se for idempotente
+                        if (response != null && (response.statusCode() == 503 || response.statusCode() == 429)) {
+                            String retryAfter = response.headers().firstValue("Retry-After").orElse(null);
+                            if (retryAfter != null || idempotent) {
+                                return retry(request, idempotent, attempt, retryAfter);
+                            }
+                        }
+                        if (error != null && idempotent && unwrap(error) instanceof IOException) {
+                            return retry(request, idempotent, attempt, null);
+                        }
+                    }
+                    return error == null
+                            ? CompletableFuture.completedFuture(response)
+                            : CompletableFuture.<HttpResponse<byte[]>>failedFuture(unwrap(error));
+                })
+                .thenCompose(Function.identity());
+    }
+
+    private CompletableFuture<HttpResponse<byte[]>> retry(HttpRequest.Builder request, boolean idempotent, int attempt,
+                                                          String retryAfter) {
+        Duration delay = retryAfter != null && retryAfter.matches("\\d+")
+                ? Duration.ofSeconds(Long.parseLong(retryAfter))
+                : options.getRetryBackoff().multipliedBy(1L << attempt);
+        log.debug("Retrying {} in {}ms, attempt {}", request.build().uri(), delay.toMillis(), attempt + 1);
+        return CompletableFuture.supplyAsync(() -> execute(request, idempotent, attempt + 1),
+                        CompletableFuture.delayedExecutor(delay.toMillis(), TimeUnit.MILLISECONDS))
+                .thenCompose(Function.identity());
+    }
+
+    private HttpRequest.Builder request(URI uri, String accept) {
+        return HttpRequest.newBuilder(uri)
+                .timeout(options.getRequestTimeout())
+                .header("Accept", accept)
+                .header("Accept-Encoding", "gzip");
+    }
+
+    private URI uri(String template, Object... uriVariables) {
+        return UriComponentsBuilder.fromUriString(baseUri + template).encode().buildAndExpand(uriVariables).toUri();
+    }
+
+    private static String ifMatch(Long id, Long expectedVersion) {
+        return expectedVersion == null ? null : "\"" + id + "-" + expectedVersion + "\"";
+    }
+
+    private static byte[] body(HttpResponse<byte[]> response) {
+        byte[] body = response.body();
+        if (isGzipped(response)) {
+            try (InputStream gzip = new GZIPInputStream(new ByteArrayInputStream(body))) {
+                body = gzip.readAllBytes();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        if (response.statusCode() >= 400) {
+            throw new AnimeClientException(response.statusCode(), new String(body, StandardCharsets.UTF_8));
+        }
+        return body;
+    }
+
+    private static boolean isGzipped(HttpResponse<?> response) {
+        return response.headers().firstValue("Content-Encoding").filter("gzip"::equalsIgnoreCase).isPresent();
+    }
+
+    private <T> T read(byte[] body, TypeReference<T> type) {
+        try {
+            return objectMapper.readValue(body, type);
+        } catch (IOException e) {
+            throw new AnimeClientException("Could not read the anime API response", e);
+        }
+    }
+
+    private byte[] write(Object requestBody) {
+        try {
+            return objectMapper.writeValueAsBytes(requestBody);
+        } catch (IOException e) {
+            throw new AnimeClientException("Could not write the anime API request", e);
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private static void close(MappingIterator<?> iterator) {
+        try {
+            iterator.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @AllArgsConstructor
+    private static final class CachedResponse {
+        private final String eTag;
+        private final byte[] body;
+    }
+
+    private final class CursorSpliterator extends Spliterators.AbstractSpliterator<Anime> {
+        private final int pageSize;
+        private Iterator<Anime> current = Collections.emptyIterator();
+        private CompletableFuture<CursorPage<Anime>> next;
+        private boolean started;
+
+        private CursorSpliterator(int pageSize) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.pageSize = pageSize;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Anime> action) {
+            if (!started) {
+                started = true;
+                next = listByCursor(null, pageSize, false);
+            }
+            while (!current.hasNext()) {
+                if (next == null) {
+                    return false;
+                }
+                CursorPage<Anime> page = next.join();
+                next = page.isLast() || page.getNextCursor() == null
+                        ? null
+                        : listByCursor(page.getNextCursor(), pageSize, false);
+                current = page.getContent().iterator();
+            }
+            action.accept(current.next());
+            return true;
+        }
+    }
+}
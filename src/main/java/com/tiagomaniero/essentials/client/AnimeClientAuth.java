@@ -0,0 +1,33 @@
+package com.tiagomaniero.essentials.client;
+
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.function.Supplier;
+
+/**
+ * Adds credentials to every request the {@link AnimeClient} sends, it is called again on each retry.
+ */
+@FunctionalInterface
+public interface AnimeClientAuth {
+
+    void apply(HttpRequest.Builder request);
+
+    static AnimeClientAuth none() {
+        return request -> {
+        };
+    }
+
+    static AnimeClientAuth basic(String username, String password) {
+        String credentials = Base64.getEncoder()
+                .encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+        return request -> request.setHeader("Authorization", "Basic " + credentials);
+    }
+
+    /**
+     * @param token called per request, so a refreshed token is picked up without rebuilding the client
+     */
+    static AnimeClientAuth bearer(Supplier<String> token) {
+        return request -> request.setHeader("Authorization", "Bearer " + token.get());
+    }
+}
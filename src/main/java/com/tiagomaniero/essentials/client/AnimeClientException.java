@@ -0,0 +1,22 @@
+package com.tiagomaniero.essentials.client;
+
+import lombok.Getter;
+
+@Getter
+public class AnimeClientException extends RuntimeException {
+
+    private final int status;
+    private final String body;
+
+    public AnimeClientException(int status, String body) {
+        super("Anime API answered " + status + ": " + body);
+        this.status = status;
+        this.body = body;
+    }
+
+    public AnimeClientException(String message, Throwable cause) {
+        super(message, cause);
+        this.status = -1;
+        this.body = null;
+    }
+}
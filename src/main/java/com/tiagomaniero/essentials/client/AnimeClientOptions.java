@@ -0,0 +1,63 @@
+package com.tiagomaniero.essentials.client;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
+@Getter
+@Builder
+public class AnimeClientOptions {
+
+    @Builder.Default
+    private final URI baseUri = URI.create("http://localhost:8080");
+
+    @Builder.Default
+    private final AnimeClientAuth auth = AnimeClientAuth.none();
+
+    @Builder.Default
+    private final Duration connectTimeout = Duration.ofSeconds(2);
+
+    @Builder.Default
+    private final Duration requestTimeout = Duration.ofSeconds(10);
+
+    /**
+     * HTTP/2 is negotiated over TLS and falls back to HTTP/1.1 keep-alive otherwise.
+     */
+    @Builder.Default
+    private final HttpClient.Version version = HttpClient.Version.HTTP_2;
+
+    /**
+     * Retries after the first attempt. 503 and 429 with Retry-After are retried for every method, since only the
+     * bulkheads and the rate limit send it and they reject before touching the database. Without Retry-After, and on
+     * connection errors, only GET, PUT and DELETE are retried.
+     */
+    @Builder.Default
+    private final int maxRetries = 2;
+
+    /**
+     * Doubled on every retry, a Retry-After sent by the server wins.
+     */
+    @Builder.Default
+    private final Duration retryBackoff = Duration.ofMillis(200);
+
+    /**
+     * Number of GET responses kept to revalidate with If-None-Match, 0 disables the cache.
+     */
+    @Builder.Default
+    private final long cacheSize = 1_000;
+
+    /**
+     * Requests in flight per batched call such as {@link AnimeClient#findAllById}.
+     */
+    @Builder.Default
+    private final int batchConcurrency = 8;
+
+    /**
+     * Runs the response callbacks, null keeps the HttpClient default.
+     */
+    private final Executor executor;
+}
@@ -0,0 +1,198 @@
+package com.tiagomaniero.essentials.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "anime")
+public class AnimeProperties {
+
+    private final Cache cache = new Cache();
+    private final Search search = new Search();
+    private final Batch batch = new Batch();
+    private final Security security = new Security();
+    private final Async async = new Async();
+    private final Bulkhead bulkhead = new Bulkhead();
+    private final Replica replica = new Replica();
+    private final Sql sql = new Sql();
+    private final RateLimit rateLimit = new RateLimit();
+    private final SingleFlight singleFlight = new SingleFlight();
+    private final Changes changes = new Changes();
+    private final WriteBehind writeBehind = new WriteBehind();
+    private final ReadModel readModel = new ReadModel();
+    private final PageCache pageCache = new PageCache();
+    private final Startup startup = new Startup();
+
+    @Getter
+    @Setter
+    public static class Cache {
+        private long maximumSize = 10_000;
+        private Duration ttl = Duration.ofMinutes(10);
+        private Duration notFoundTtl = Duration.ofSeconds(30);
+    }
+
+    @Getter
+    @Setter
+    public static class Search {
+        private int fuzzyMinLength = 4;
+    }
+
+    @Getter
+    @Setter
+    public static class Batch {
+        private int size = 500;
+        private int maxItems = 10_000;
+    }
+
+    @Getter
+    @Setter
+    public static class Security {
+        private long userCacheSize = 10_000;
+        private Duration userCacheTtl = Duration.ofMinutes(5);
+        private long credentialCacheSize = 10_000;
+        private Duration credentialCacheTtl = Duration.ofMinutes(5);
+        private String tokenSecret;
+        private Duration tokenTtl = Duration.ofHours(1);
+    }
+
+    @Getter
+    @Setter
+    public static class Async {
+        private int concurrency = 10;
+        private int queueCapacity = 500;
+        private Duration retryAfter = Duration.ofSeconds(1);
+    }
+
+    @Getter
+    @Setter
+    public static class Bulkhead {
+        private int read = 6;
+        private int scan = 2;
+        private int write = 2;
+        private Duration maxWait = Duration.ZERO;
+    }
+
+    @Getter
+    @Setter
+    public static class Replica {
+        /** JDBC urls of the read replicas, reads stay on the primary while empty */
+        private List<String> urls = new ArrayList<>();
+        /** defaults to spring.datasource.username / password */
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+        private Duration stickiness = Duration.ofSeconds(5);
+        private Duration ejection = Duration.ofSeconds(30);
+    }
+
+    @Getter
+    @Setter
+    public static class Sql {
+        private long statementThreshold = 10;
+        private Duration slowRequestThreshold = Duration.ofMillis(500);
+    }
+
+    @Getter
+    @Setter
+    public static class SingleFlight {
+        private boolean enabled = true;
+        /** longest a request waits on another request's read before giving up with 503, zero waits forever */
+        private Duration maxWait = Duration.ofSeconds(2);
+    }
+
+    @Getter
+    @Setter
+    public static class Changes {
+        private int maxPageSize = 1_000;
+        /** a missing seq younger than this may still be committed, readers stop before it */
+        private Duration gapTimeout = Duration.ofSeconds(5);
+        /** older entries are dropped when a newer entry of the same anime exists */
+        private Duration retention = Duration.ofDays(1);
+        /** deletes are kept longer, a consumer further behind has to resync from /all */
+        private Duration tombstoneRetention = Duration.ofDays(7);
+        private Duration compactionInterval = Duration.ofHours(1);
+        private int compactionChunkSize = 1_000;
+        /** how often stream subscribers pick up changes committed by other nodes */
+        private Duration pollInterval = Duration.ofSeconds(1);
+        private Duration heartbeat = Duration.ofSeconds(15);
+        private Duration streamTimeout = Duration.ofMinutes(30);
+    }
+
+    @Getter
+    @Setter
+    public static class WriteBehind {
+        /** saves are journaled and inserted in batches by a background flusher */
+        private boolean enabled = false;
+        /** local directory of the journal, one per node */
+        private String journalDirectory = "data/write-behind";
+        private int queueCapacity = 10_000;
+        private int batchSize = 500;
+        /** longest a write waits in the queue for its batch to fill */
+        private Duration flushInterval = Duration.ofMillis(50);
+        private Duration retryBackoff = Duration.ofSeconds(1);
+    }
+
+    @Getter
+    @Setter
+    public static class ReadModel {
+        /**
+         * findById, list and listAll are served from an in-memory copy of the catalogue, every write then has to
+         * go through AnimeService (the change log), rows written around it are never picked up
+         */
+        private boolean enabled = false;
+        /** how often changes committed by other nodes are picked up */
+        private Duration pollInterval = Duration.ofSeconds(1);
+    }
+
+    @Getter
+    @Setter
+    public static class PageCache {
+        /** list pages are kept already encoded and written without Jackson */
+        private boolean enabled = true;
+        private long maximumSize = 1_000;
+        /** writes of this node empty the cache at once, writes of other nodes show up after this */
+        private Duration ttl = Duration.ofSeconds(5);
+    }
+
+    @Getter
+    @Setter
+    public static class Startup {
+        /** exits once started, used to record the class-data-sharing archive (cds build profile) */
+        private boolean trainingRun = false;
+    }
+
+    @Getter
+    @Setter
+    public static class RateLimit {
+        private boolean enabled = true;
+        /** every quota is a number of requests per period */
+        private Duration period = Duration.ofMinutes(1);
+        private long maximumBuckets = 100_000;
+        /** keyed by role without the ROLE_ prefix, a user gets the largest quota among its roles */
+        private Map<String, Quota> roles = new HashMap<>(Map.of(
+                "USER", new Quota(600, 10, 60),
+                "ADMIN", new Quota(6_000, 100, 600)));
+        /** requests without a known role, keyed by remote address */
+        private Quota anonymous = new Quota(60, 1, 0);
+    }
+
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Quota {
+        private long read;
+        private long scan;
+        private long write;
+    }
+}
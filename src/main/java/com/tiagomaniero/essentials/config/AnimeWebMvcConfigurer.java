@@ -1,20 +1,82 @@
 package com.tiagomaniero.essentials.config;
 
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.tiagomaniero.essentials.cache.CachedPageHttpMessageConverter;
+import com.tiagomaniero.essentials.ratelimit.RateLimitInterceptor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Configuration
+@RequiredArgsConstructor
 public class AnimeWebMvcConfigurer implements WebMvcConfigurer {
 
+    /** page served when the request has no page or size */
+    public static final Pageable FALLBACK_PAGEABLE = PageRequest.of(0, 5);
+
+    private final Jackson2ObjectMapperBuilder jackson2ObjectMapperBuilder;
+    private final RateLimitInterceptor rateLimitInterceptor;
+    private final AnimeProperties animeProperties;
+    private final ServerProperties serverProperties;
+
     @Override
     public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
         PageableHandlerMethodArgumentResolver pageHmar = new PageableHandlerMethodArgumentResolver();
-        pageHmar.setFallbackPageable(PageRequest.of(0, 5));
+        pageHmar.setFallbackPageable(FALLBACK_PAGEABLE);
         resolvers.add(pageHmar);
     }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // JSON, Smile e CBOR saem da mesma URL: sem Vary: Accept um cache entregaria o formato de outro cliente
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                // roda de novo no dispatch assíncrono dos CompletableFuture
+                if (!response.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT)) {
+                    response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+                }
+                return true;
+            }
+        }).addPathPatterns("/api/v1/animes/**");
+        if (animeProperties.getRateLimit().isEnabled()) {
+            registry.addInterceptor(rateLimitInterceptor).addPathPatterns("/api/v1/animes/**");
+        }
+    }
+
+    //Smile e CBOR só quando pedidos no Accept, ficam depois do JSON para */* continuar recebendo JSON
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new MappingJackson2SmileHttpMessageConverter(
+                jackson2ObjectMapperBuilder.factory(new SmileFactory()).build()));
+        converters.add(new MappingJackson2CborHttpMessageConverter(
+                jackson2ObjectMapperBuilder.factory(new CBORFactory()).build()));
+        if (animeProperties.getPageCache().isEnabled()) {
+            List<AbstractJackson2HttpMessageConverter> jacksonConverters = converters.stream()
+                    .filter(AbstractJackson2HttpMessageConverter.class::isInstance)
+                    .map(AbstractJackson2HttpMessageConverter.class::cast)
+                    .collect(Collectors.toList());
+            // antes dos conversores Jackson, só responde por CachedPage
+            converters.add(0, new CachedPageHttpMessageConverter(jacksonConverters, serverProperties.getCompression()));
+        }
+    }
 }
@@ -0,0 +1,25 @@
+package com.tiagomaniero.essentials.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+
+/**
+ * Keeps the request path eager when spring.main.lazy-initialization is on (prod profile): controllers and
+ * their advices, and through them the services, repositories and the JPA bootstrap they depend on, are
+ * created at startup so the first requests of a new node do not pay for them. Everything else waits until
+ * it is used.
+ */
+@Configuration
+public class LazyInitializationConfig {
+
+    @Bean
+    static LazyInitializationExcludeFilter requestPathExcludeFilter() {
+        return (beanName, beanDefinition, beanType) ->
+                AnnotatedElementUtils.hasAnnotation(beanType, Controller.class)
+                        || AnnotatedElementUtils.hasAnnotation(beanType, ControllerAdvice.class);
+    }
+}
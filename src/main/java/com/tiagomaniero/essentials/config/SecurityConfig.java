@@ -1,5 +1,8 @@
 package com.tiagomaniero.essentials.config;
 
+import com.tiagomaniero.essentials.security.CachingPasswordEncoder;
+import com.tiagomaniero.essentials.security.TokenAuthenticationFilter;
+import com.tiagomaniero.essentials.security.TokenService;
 import com.tiagomaniero.essentials.service.DatabaseUserDetailsService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
@@ -7,8 +10,8 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
-import org.springframework.security.crypto.factory.PasswordEncoderFactories;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
 
 @EnableWebSecurity
@@ -18,10 +21,11 @@ import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
 public class SecurityConfig extends WebSecurityConfigurerAdapter {
 
     private final DatabaseUserDetailsService databaseUserDetailsService;
+    private final CachingPasswordEncoder passwordEncoder;
+    private final TokenService tokenService;
 
     @Override
     protected void configure(AuthenticationManagerBuilder auth) throws Exception {
-        PasswordEncoder passwordEncoder = PasswordEncoderFactories.createDelegatingPasswordEncoder();
 
         auth.inMemoryAuthentication()
                 .withUser("tiago")
@@ -37,26 +41,31 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
     }
 
     /**
+     * TokenAuthenticationFilter
      * BasicAuthenticationFilter
-     * UsernamePasswordAuthenticationFilter
-     * DefaultLoginPageGeneratingFilter
-     * DefaultLogoutPageGeneratingFilter
      * FilterSecurityInterceptor
      * Authentication -> Authorization
+     * No HttpSession is created: Basic is verified on each request (see CachingPasswordEncoder)
+     * and bearer tokens from /api/v1/auth/token are verified from their signature alone.
      */
     @Override
     protected void configure(HttpSecurity http) throws Exception {
-        http.csrf().csrfTokenRepository(CookieCsrfTokenRepository.withHttpOnlyFalse())
+        http.sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                 .and()
+                .csrf().csrfTokenRepository(CookieCsrfTokenRepository.withHttpOnlyFalse())
+                // o navegador nunca manda o Bearer sozinho, já o Basic ele reenvia e por isso continua exigindo o token
+                .ignoringRequestMatchers(TokenAuthenticationFilter::hasBearerToken)
+                .ignoringAntMatchers("/api/v1/auth/token")
+                .and()
+                .addFilterBefore(new TokenAuthenticationFilter(tokenService), BasicAuthenticationFilter.class)
                 .authorizeRequests()
-                .antMatchers("/animes/admin/**").hasRole("ADMIN") //o mais restritivo deve vir primeiro
-                .antMatchers("/animes/**").hasRole("USER")
+                .antMatchers("/api/v1/animes/admin/**").hasRole("ADMIN") //o mais restritivo deve vir primeiro
+                .antMatchers("/api/v1/animes/**").hasRole("USER")
+                .antMatchers("/actuator/querystats/**").hasRole("ADMIN") //mostra SQL e o DELETE zera as estatísticas
                 .antMatchers("/actuator/**").permitAll()
                 .anyRequest()
                 .authenticated()
                 .and()
-                .formLogin()
-                .and()
                 .httpBasic();
     }
 }
@@ -0,0 +1,29 @@
+package com.tiagomaniero.essentials.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * With anime.startup.training-run the application exits as soon as it is ready. The cds build profile starts
+ * it this way with -XX:ArchiveClassesAtExit to record every class loaded during startup.
+ */
+@Component
+@Log4j2
+@RequiredArgsConstructor
+@ConditionalOnProperty("anime.startup.training-run")
+public class StartupTrainingRun {
+
+    private final ConfigurableApplicationContext context;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void exit() {
+        log.info("Training run finished, exiting");
+        System.exit(SpringApplication.exit(context));
+    }
+}
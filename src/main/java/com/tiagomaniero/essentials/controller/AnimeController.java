@@ -1,10 +1,29 @@
 package com.tiagomaniero.essentials.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.tiagomaniero.essentials.async.AnimeDbExecutor;
+import com.tiagomaniero.essentials.async.AnimeDbExecutor.OperationClass;
+import com.tiagomaniero.essentials.async.AnimeReadCoalescer;
+import com.tiagomaniero.essentials.cache.AnimePageCache;
 import com.tiagomaniero.essentials.domain.Anime;
+import com.tiagomaniero.essentials.exception.BadRequestException;
+import com.tiagomaniero.essentials.feed.AnimeChangeBroadcaster;
+import com.tiagomaniero.essentials.ratelimit.RateLimitClass;
+import com.tiagomaniero.essentials.readmodel.AnimeReadModel;
+import com.tiagomaniero.essentials.requests.AnimePatchRequestBody;
 import com.tiagomaniero.essentials.requests.AnimePostRequestBody;
 import com.tiagomaniero.essentials.requests.AnimePutRequestBody;
+import com.tiagomaniero.essentials.service.AnimeBatchService;
+import com.tiagomaniero.essentials.service.AnimeChangeService;
 import com.tiagomaniero.essentials.service.AnimeService;
-import com.tiagomaniero.essentials.util.DateUtil;
+import com.tiagomaniero.essentials.util.ETagUtil;
+import com.tiagomaniero.essentials.wrapper.AnimeBatchItemResult;
+import com.tiagomaniero.essentials.wrapper.AnimeChangePage;
+import com.tiagomaniero.essentials.wrapper.AnimeWriteTicket;
+import com.tiagomaniero.essentials.wrapper.CursorPage;
+import com.tiagomaniero.essentials.writebehind.AnimeWriteBehind;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -13,16 +32,22 @@ import lombok.extern.log4j.Log4j2;
 import org.springdoc.api.annotations.ParameterObject;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
-import java.time.LocalDateTime;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/v1/animes")
@@ -30,8 +55,17 @@ import java.util.List;
 @AllArgsConstructor
 public class AnimeController {
 
-    private final DateUtil dateUtil;
+    private final ETagUtil eTagUtil;
     private final AnimeService animeService;
+    private final AnimeBatchService animeBatchService;
+    private final ObjectMapper objectMapper;
+    private final AnimeDbExecutor animeDbExecutor;
+    private final AnimeReadCoalescer animeReadCoalescer;
+    private final AnimeChangeService animeChangeService;
+    private final AnimeChangeBroadcaster animeChangeBroadcaster;
+    private final AnimeWriteBehind animeWriteBehind;
+    private final AnimeReadModel animeReadModel;
+    private final AnimePageCache animePageCache;
 
     @GetMapping
     @Operation(
@@ -39,39 +73,164 @@ public class AnimeController {
             description = "The default size is 20, parameter size change default value",
             tags = {"anime"}
     )
-    public ResponseEntity<Page<Anime>> list(@ParameterObject Pageable pageable){
-        log.info(dateUtil.formatLocalDateTimeToDatabaseStyle(LocalDateTime.now()));
-        return ResponseEntity.ok(animeService.listAll(pageable));
+    public CompletableFuture<ResponseEntity<Page<Anime>>> list(@ParameterObject Pageable pageable){
+        CompletableFuture<Page<Anime>> page = animePageCache.get(pageable, () -> animeReadModel.canServe(pageable)
+                ? CompletableFuture.completedFuture(animeReadModel.page(pageable))
+                : animeDbExecutor.supply(OperationClass.READ, () -> animeService.listAll(pageable)));
+        return page.thenApply(animes -> ResponseEntity.ok()
+                .eTag(eTagUtil.forAnimes(animes.getContent(), animes.getTotalElements()))
+                .body(animes));
+    }
+
+    @GetMapping("/cursor")
+    @Operation(
+            summary = "List animes using keyset pagination",
+            description = "Pass the nextCursor of the previous response as after, the total is only counted when count=true",
+            tags = {"anime"}
+    )
+    public CompletableFuture<ResponseEntity<CursorPage<Anime>>> listByCursor(@RequestParam(required = false) String after,
+                                                                             @RequestParam(defaultValue = "20") int size,
+                                                                             @RequestParam(defaultValue = "false") boolean count){
+        return animeDbExecutor.supply(OperationClass.READ, () -> animeService.listAfter(after, size, count))
+                .thenApply(ResponseEntity::ok);
     }
 
     @GetMapping("/all")
-    public ResponseEntity<List<Anime>> listAll(){
-        log.info(dateUtil.formatLocalDateTimeToDatabaseStyle(LocalDateTime.now()));
-        return ResponseEntity.ok(animeService.listAllNonPageable());
+    @RateLimitClass(OperationClass.SCAN)
+    public CompletableFuture<ResponseEntity<List<Anime>>> listAll(){
+        CompletableFuture<List<Anime>> all = animeReadModel.isReady()
+                ? CompletableFuture.completedFuture(animeReadModel.listAll())
+                : animeDbExecutor.supply(OperationClass.SCAN, animeService::listAllNonPageable);
+        return all.thenApply(animes -> ResponseEntity.ok()
+                .eTag(eTagUtil.forAnimes(animes, animes.size()))
+                .body(animes));
+    }
+
+    @GetMapping(value = "/all/stream", produces = "application/x-ndjson")
+    @RateLimitClass(OperationClass.SCAN)
+    @Operation(
+            summary = "Stream every anime as newline delimited json",
+            description = "Rows are read through a database cursor and written as they arrive, use it instead of /all for large exports",
+            tags = {"anime"}
+    )
+    public ResponseEntity<StreamingResponseBody> streamAll(){
+        ObjectWriter writer = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // a permissão é pega aqui para que a recusa vire 503 antes do status 200 ser enviado
+        animeDbExecutor.acquire(OperationClass.SCAN);
+        StreamingResponseBody body = outputStream -> {
+            try {
+                animeService.streamAll(anime -> {
+                    try {
+                        writer.writeValue(outputStream, anime);
+                        outputStream.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } finally {
+                animeDbExecutor.release(OperationClass.SCAN);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    @GetMapping("/changes")
+    @Operation(
+            summary = "List the anime changes after a sequence number",
+            description = "Send the returned next as since to read only what changed, deletes are kept for 7 days",
+            tags = {"anime"}
+    )
+    public CompletableFuture<ResponseEntity<AnimeChangePage>> changes(@RequestParam(defaultValue = "0") long since,
+                                                                      @RequestParam(defaultValue = "500") int limit){
+        return animeDbExecutor.supply(OperationClass.READ, () -> animeChangeService.changesSince(since, limit))
+                .thenApply(ResponseEntity::ok);
+    }
+
+    @GetMapping(value = "/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(
+            summary = "Stream the anime changes as Server-Sent Events",
+            description = "The event id is the sequence number, reconnect with Last-Event-ID or since to resume",
+            tags = {"anime"}
+    )
+    public SseEmitter changesStream(@RequestParam(required = false) Long since,
+                                    @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId){
+        return animeChangeBroadcaster.subscribe(lastEventId != null ? lastEventId : since);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Anime> findById(@PathVariable(value = "id") Long id){
-        return ResponseEntity.ok(animeService.findByIdorThrowBadRequest(id));
+    @Operation(
+            summary = "Find an anime by id",
+            description = "Send the returned ETag as If-None-Match to get 304 Not Modified while the anime is unchanged",
+            tags = {"anime"}
+    )
+    public CompletableFuture<ResponseEntity<Anime>> findById(@PathVariable(value = "id") Long id){
+        return findByIdOrThrow(id)
+                .thenApply(anime -> ResponseEntity.ok()
+                        .eTag(eTagUtil.forAnime(anime))
+                        .body(anime));
     }
 
     @GetMapping("/id/{id}")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<Anime> findByIdAuthentication(@PathVariable(value = "id") Long id,
-                                                        @AuthenticationPrincipal UserDetails userDetails){
+    public CompletableFuture<ResponseEntity<Anime>> findByIdAuthentication(@PathVariable(value = "id") Long id,
+                                                                           @AuthenticationPrincipal UserDetails userDetails){
 
-        log.info(userDetails);
-        return ResponseEntity.ok(animeService.findByIdorThrowBadRequest(id));
+        log.debug("Anime {} requested by {}", id, userDetails.getUsername());
+        return findByIdOrThrow(id)
+                .thenApply(ResponseEntity::ok);
     }
 
     @GetMapping("/find")
-    public ResponseEntity<List<Anime>> findByName(@RequestParam String name){
-        return ResponseEntity.ok(animeService.findByName(name));
+    public CompletableFuture<ResponseEntity<List<Anime>>> findByName(@RequestParam String name){
+        return animeReadCoalescer.findByName(name,
+                        () -> animeDbExecutor.supply(OperationClass.READ, () -> animeService.findByName(name)))
+                .thenApply(ResponseEntity::ok);
+    }
+
+    @GetMapping("/search")
+    @Operation(
+            summary = "Search animes by name",
+            description = "Case and accent insensitive, matches word prefixes and tolerates one typo, best matches first",
+            tags = {"anime"}
+    )
+    public CompletableFuture<ResponseEntity<Page<Anime>>> search(@RequestParam String name, @ParameterObject Pageable pageable){
+        return animeDbExecutor.supply(OperationClass.READ, () -> animeService.search(name, pageable))
+                .thenApply(ResponseEntity::ok);
     }
 
     @PostMapping
-    public ResponseEntity<Anime> save(@RequestBody @Valid AnimePostRequestBody animePostRequestBody){
-        return new ResponseEntity<>(animeService.save(animePostRequestBody), HttpStatus.CREATED);
+    public CompletableFuture<ResponseEntity<Anime>> save(@RequestBody @Valid AnimePostRequestBody animePostRequestBody){
+        CompletableFuture<Anime> saved = animeWriteBehind.isEnabled()
+                ? animeWriteBehind.submit(animePostRequestBody).getSaved()
+                : animeDbExecutor.supply(OperationClass.WRITE, () -> animeService.save(animePostRequestBody));
+        return saved.thenApply(anime -> new ResponseEntity<>(anime, HttpStatus.CREATED));
+    }
+
+    @PostMapping("/async")
+    @Operation(
+            summary = "Accept an anime for the write-behind queue",
+            description = "Answers 202 as soon as the save is journaled, it shows up in /changes once its batch commits",
+            tags = {"anime"}
+    )
+    public ResponseEntity<AnimeWriteTicket> saveAsync(@RequestBody @Valid AnimePostRequestBody animePostRequestBody){
+        if (!animeWriteBehind.isEnabled()) {
+            throw new BadRequestException("Write-behind is disabled");
+        }
+        long ticket = animeWriteBehind.submit(animePostRequestBody).getTicket();
+        return new ResponseEntity<>(new AnimeWriteTicket(ticket), HttpStatus.ACCEPTED);
+    }
+
+    @PostMapping("/batch")
+    @Operation(
+            summary = "Save a list of animes using batched inserts",
+            description = "Every item is validated, valid ones are inserted in chunks and the result lists the id or the error of each item",
+            tags = {"anime"}
+    )
+    public CompletableFuture<ResponseEntity<List<AnimeBatchItemResult>>> saveAll(@RequestBody List<AnimePostRequestBody> animePostRequestBodies){
+        return animeDbExecutor.supply(OperationClass.WRITE, () -> animeBatchService.saveAll(animePostRequestBodies))
+                .thenApply(ResponseEntity::ok);
     }
 
     @DeleteMapping("/admin/{id}")
@@ -79,14 +238,48 @@ public class AnimeController {
             @ApiResponse(responseCode = "204", description = "Successful Operation"),
             @ApiResponse(responseCode = "400", description = "When Anime does not exists the database")
     })
-    public ResponseEntity<Void> delete(@PathVariable(value = "id") Long id){
-        animeService.deleteById(id);
-        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    public CompletableFuture<ResponseEntity<Void>> delete(@PathVariable(value = "id") Long id){
+        return animeDbExecutor.run(OperationClass.WRITE, () -> animeService.deleteById(id))
+                .thenApply(nothing -> new ResponseEntity<>(HttpStatus.NO_CONTENT));
     }
 
     @PutMapping
-    public ResponseEntity<Void> replace(@RequestBody AnimePutRequestBody animePutRequestBody){
-        animeService.replace(animePutRequestBody);
-        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Successful Operation"),
+            @ApiResponse(responseCode = "412", description = "When If-Match does not match the current anime version")
+    })
+    public CompletableFuture<ResponseEntity<Void>> replace(@RequestBody @Valid AnimePutRequestBody animePutRequestBody,
+                                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
+        Long expectedVersion = eTagUtil.versionOf(animePutRequestBody.getId(), ifMatch);
+        return animeDbExecutor.run(OperationClass.WRITE, () -> animeService.replace(animePutRequestBody, expectedVersion))
+                .thenApply(nothing -> new ResponseEntity<>(HttpStatus.NO_CONTENT));
+    }
+
+    @PatchMapping("/{id}")
+    @Operation(
+            summary = "Update only the given fields of an anime",
+            description = "Fields missing from the body keep their value, send If-Match to update only an unchanged anime",
+            tags = {"anime"}
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Successful Operation"),
+            @ApiResponse(responseCode = "412", description = "When If-Match does not match the current anime version")
+    })
+    public CompletableFuture<ResponseEntity<Void>> patch(@PathVariable(value = "id") Long id,
+                                                         @RequestBody @Valid AnimePatchRequestBody animePatchRequestBody,
+                                                         @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
+        Long expectedVersion = eTagUtil.versionOf(id, ifMatch);
+        return animeDbExecutor.run(OperationClass.WRITE, () -> animeService.patch(id, animePatchRequestBody, expectedVersion))
+                .thenApply(nothing -> new ResponseEntity<>(HttpStatus.NO_CONTENT));
+    }
+
+    // leituras servidas da memória não passam pelo bulkhead do banco
+    private CompletableFuture<Anime> findByIdOrThrow(Long id){
+        if (animeReadModel.isReady()) {
+            return CompletableFuture.completedFuture(animeReadModel.findById(id)
+                    .orElseThrow(() -> new BadRequestException("Anime ID not found")));
+        }
+        return animeReadCoalescer.findById(id,
+                () -> animeDbExecutor.supply(OperationClass.READ, () -> animeService.findByIdorThrowBadRequest(id)));
     }
 }
@@ -0,0 +1,40 @@
+package com.tiagomaniero.essentials.controller;
+
+import com.tiagomaniero.essentials.security.BearerTokenAuthentication;
+import com.tiagomaniero.essentials.security.TokenService;
+import com.tiagomaniero.essentials.wrapper.TokenResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1/auth")
+@RequiredArgsConstructor
+public class AuthController {
+
+    private final TokenService tokenService;
+
+    @PostMapping("/token")
+    @Operation(
+            summary = "Issue a bearer token for the authenticated user",
+            description = "Call it once with Basic credentials and send the token as Authorization: Bearer on later requests. " +
+                    "A bearer token cannot be used to issue another one",
+            tags = {"auth"}
+    )
+    public ResponseEntity<TokenResponse> token(Authentication authentication){
+        // renovar com o próprio token estenderia o acesso para sempre sem nunca rever a senha
+        if (authentication instanceof BearerTokenAuthentication) {
+            throw new AccessDeniedException("Tokens are only issued for Basic credentials");
+        }
+        return ResponseEntity.ok(TokenResponse.builder()
+                .accessToken(tokenService.issue(authentication.getName(), authentication.getAuthorities()))
+                .tokenType("Bearer")
+                .expiresIn(tokenService.getTtl().getSeconds())
+                .build());
+    }
+}
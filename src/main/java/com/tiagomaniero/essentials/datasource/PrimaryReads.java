@@ -0,0 +1,33 @@
+package com.tiagomaniero.essentials.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Sends the reads of the current thread to the primary even inside a read-only transaction. For reads whose result
+ * outlives the request (caches, change log positions), where a lagging replica would be remembered well past
+ * anime.replica.stickiness. The connection is taken on the first statement, so mark the reads before the
+ * transaction touched the database.
+ */
+public final class PrimaryReads {
+
+    private static final ThreadLocal<Boolean> ACTIVE = new ThreadLocal<>();
+
+    private PrimaryReads() {
+    }
+
+    public static <T> T run(Supplier<T> reads) {
+        Boolean previous = ACTIVE.get();
+        ACTIVE.set(Boolean.TRUE);
+        try {
+            return reads.get();
+        } finally {
+            if (previous == null) {
+                ACTIVE.remove();
+            }
+        }
+    }
+
+    public static boolean isActive() {
+        return ACTIVE.get() != null;
+    }
+}
@@ -0,0 +1,123 @@
+package com.tiagomaniero.essentials.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out replica connections (round-robin) to read-only transactions and primary connections to everything
+ * else, and to reads marked with {@link PrimaryReads}. A replica that fails to give a connection is ejected for anime.replica.ejection and its reads fall back
+ * to the next replica or the primary. Must sit behind a LazyConnectionDataSourceProxy, otherwise the connection
+ * is taken before the transaction is marked read-only.
+ */
+@Log4j2
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final ReplicaStickiness replicaStickiness;
+    private final long ejectionNanos;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter primaryConnections;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, ReplicaStickiness replicaStickiness,
+                                    Duration ejection, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicaStickiness = replicaStickiness;
+        this.ejectionNanos = ejection.toNanos();
+        this.primaryConnections = Counter.builder("anime.datasource.connections")
+                .tag("target", "primary")
+                .register(meterRegistry);
+        for (int i = 0; i < replicas.size(); i++) {
+            this.replicas.add(new Replica("replica-" + i, replicas.get(i), meterRegistry));
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return getConnection(null, null);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (routeToReplica()) {
+            long now = System.nanoTime();
+            for (int attempt = 0; attempt < replicas.size(); attempt++) {
+                Replica replica = replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+                if (replica.isEjected(now)) {
+                    continue;
+                }
+                try {
+                    Connection connection = replica.connect(username, password);
+                    replica.connections.increment();
+                    return connection;
+                } catch (SQLException e) {
+                    replica.ejectedUntil = now + ejectionNanos;
+                    log.warn("Ejecting {} for {} ms, reads fall back: {}", replica.name, ejectionNanos / 1_000_000, e.getMessage());
+                }
+            }
+        }
+        primaryConnections.increment();
+        return username == null ? primary.getConnection() : primary.getConnection(username, password);
+    }
+
+    /**
+     * Closes the replica pools, the primary belongs to whoever created it.
+     */
+    @Override
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable) {
+                ((AutoCloseable) replica.dataSource).close();
+            }
+        }
+    }
+
+    private boolean routeToReplica() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return false;
+        }
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            replicaStickiness.markWrite();
+            return false;
+        }
+        return !replicas.isEmpty() && !PrimaryReads.isActive() && !replicaStickiness.isSticky();
+    }
+
+    private static class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private final Counter connections;
+        private volatile long ejectedUntil = System.nanoTime();
+
+        Replica(String name, DataSource dataSource, MeterRegistry meterRegistry) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.connections = Counter.builder("anime.datasource.connections")
+                    .tag("target", name)
+                    .register(meterRegistry);
+            Gauge.builder("anime.datasource.replica.ejected", this, replica -> replica.isEjected(System.nanoTime()) ? 1 : 0)
+                    .tag("target", name)
+                    .register(meterRegistry);
+        }
+
+        boolean isEjected(long now) {
+            return ejectedUntil - now > 0;
+        }
+
+        Connection connect(String username, String password) throws SQLException {
+            return username == null ? dataSource.getConnection() : dataSource.getConnection(username, password);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.tiagomaniero.essentials.domain;
+
+import com.tiagomaniero.essentials.event.AnimeChangedEvent;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.time.Instant;
+
+/**
+ * One entry of the append-only change log, written in the transaction that changed the anime.
+ * name and version are null for deletes.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Builder
+@Table(indexes = {
+        @Index(name = "idx_anime_change_anime_id", columnList = "animeId"),
+        @Index(name = "idx_anime_change_changed_at", columnList = "changedAt")
+})
+public class AnimeChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long seq;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private AnimeChangedEvent.Type type;
+
+    @Column(nullable = false)
+    private Long animeId;
+
+    private String name;
+
+    private Long version;
+
+    @Column(nullable = false)
+    private Instant changedAt;
+
+    public static AnimeChange of(AnimeChangedEvent event, Instant changedAt) {
+        Anime anime = event.getAnime();
+        return AnimeChange.builder()
+                .type(event.getType())
+                .animeId(event.getId())
+                .name(anime == null ? null : anime.getName())
+                .version(anime == null ? null : anime.getVersion())
+                .changedAt(changedAt)
+                .build();
+    }
+}
@@ -1,24 +1,25 @@
 package com.tiagomaniero.essentials.domain;
 
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotEmpty;
-import java.util.Arrays;
 import java.util.Collection;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 @Data
-@AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Builder
 @Table(name = "ANIME_USERS")
 public class DatabaseUser implements UserDetails {
 
@@ -35,11 +36,38 @@ public class DatabaseUser implements UserDetails {
 
     private String authorities;
 
+    /** authorities parsed once per load instead of on every getAuthorities call */
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Set<GrantedAuthority> grantedAuthorities = Set.of();
+
+    @Builder
+    public DatabaseUser(Long id, String name, String username, String password, String authorities) {
+        this.id = id;
+        this.name = name;
+        this.username = username;
+        this.password = password;
+        setAuthorities(authorities);
+    }
+
+    public void setAuthorities(String authorities) {
+        this.authorities = authorities;
+        parseAuthorities();
+    }
+
+    @PostLoad
+    void parseAuthorities() {
+        grantedAuthorities = authorities == null
+                ? Set.of()
+                : Set.copyOf(AuthorityUtils.commaSeparatedStringToAuthorityList(authorities));
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return Arrays.stream(authorities.split(","))
-                .map(SimpleGrantedAuthority::new)
-                .collect(Collectors.toList());
+        return grantedAuthorities;
     }
 
     @Override
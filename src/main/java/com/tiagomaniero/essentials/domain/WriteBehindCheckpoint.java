@@ -0,0 +1,29 @@
+package com.tiagomaniero.essentials.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * Last journal ticket inserted by a node, updated in the same transaction as the inserts so a replay after a
+ * crash never inserts a record twice.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Builder
+public class WriteBehindCheckpoint {
+
+    @Id
+    @Column(length = 36)
+    private String journalId;
+
+    @Column(nullable = false)
+    private Long lastTicket;
+}
@@ -0,0 +1,33 @@
+package com.tiagomaniero.essentials.event;
+
+import com.tiagomaniero.essentials.domain.Anime;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Published by AnimeService on every write, listeners that keep derived state (caches, indexes)
+ * should react after the transaction commits.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class AnimeChangedEvent {
+
+    public enum Type { CREATED, UPDATED, DELETED }
+
+    private final Type type;
+    private final Long id;
+    private final Anime anime;
+
+    public static AnimeChangedEvent created(Anime anime) {
+        return new AnimeChangedEvent(Type.CREATED, anime.getId(), anime);
+    }
+
+    public static AnimeChangedEvent updated(Anime anime) {
+        return new AnimeChangedEvent(Type.UPDATED, anime.getId(), anime);
+    }
+
+    public static AnimeChangedEvent deleted(Long id) {
+        return new AnimeChangedEvent(Type.DELETED, id, null);
+    }
+}
@@ -0,0 +1,18 @@
+package com.tiagomaniero.essentials.exception;
+
+import lombok.Getter;
+
+/**
+ * The save is in the write-behind journal but its insert did not finish here, it is inserted on the next start.
+ * Answered with 202 and the ticket instead of an error, a client that retried would insert the anime twice.
+ */
+@Getter
+public class WriteBehindPendingException extends RuntimeException{
+
+    private final long ticket;
+
+    public WriteBehindPendingException(String message, long ticket, Throwable cause) {
+        super(message, cause);
+        this.ticket = ticket;
+    }
+}
@@ -0,0 +1,161 @@
+package com.tiagomaniero.essentials.feed;
+
+import com.tiagomaniero.essentials.config.AnimeProperties;
+import com.tiagomaniero.essentials.domain.AnimeChange;
+import com.tiagomaniero.essentials.event.AnimeChangedEvent;
+import com.tiagomaniero.essentials.service.AnimeChangeService;
+import com.tiagomaniero.essentials.wrapper.AnimeChangePage;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Server-Sent Events for the change log. One thread owns every subscriber and reads the log once per distinct
+ * position, so subscribers that caught up share a single query whatever their number. The event id is the seq,
+ * a client that reconnects with Last-Event-ID continues where it stopped.
+ */
+@Component
+@Log4j2
+public class AnimeChangeBroadcaster implements DisposableBean {
+
+    private final AnimeChangeService animeChangeService;
+    private final AnimeProperties.Changes properties;
+    private final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("anime-changes-"));
+    private final List<Subscriber> subscribers = new ArrayList<>();
+    private final AtomicBoolean pollRequested = new AtomicBoolean();
+
+    public AnimeChangeBroadcaster(AnimeChangeService animeChangeService, AnimeProperties animeProperties,
+                                  MeterRegistry meterRegistry) {
+        this.animeChangeService = animeChangeService;
+        this.properties = animeProperties.getChanges();
+        long interval = properties.getPollInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::poll, interval, interval, TimeUnit.MILLISECONDS);
+        meterRegistry.gauge("anime.changes.subscribers", subscribers, List::size);
+    }
+
+    /**
+     * @param since last seq the client has seen, null to receive only changes from now on
+     */
+    public SseEmitter subscribe(Long since) {
+        SseEmitter emitter = new SseEmitter(properties.getStreamTimeout().toMillis());
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onError(error -> unsubscribe(subscriber));
+        scheduler.execute(() -> {
+            try {
+                subscriber.position = since == null ? animeChangeService.settledHead() : since;
+            } catch (RuntimeException e) {
+                emitter.completeWithError(e);
+                return;
+            }
+            subscribers.add(subscriber);
+            poll();
+        });
+        return emitter;
+    }
+
+    // commits deste nó chegam na hora, os de outros nós no próximo poll
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAnimeChanged(AnimeChangedEvent event) {
+        requestPoll();
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+        new ArrayList<>(subscribers).forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        if (!scheduler.isShutdown()) {
+            scheduler.execute(() -> subscribers.remove(subscriber));
+        }
+    }
+
+    private void requestPoll() {
+        if (pollRequested.compareAndSet(false, true)) {
+            scheduler.execute(this::poll);
+        }
+    }
+
+    private void poll() {
+        pollRequested.set(false);
+        try {
+            Map<Long, List<Subscriber>> byPosition = new HashMap<>();
+            subscribers.forEach(subscriber -> byPosition.computeIfAbsent(subscriber.position, position -> new ArrayList<>())
+                    .add(subscriber));
+            long now = System.nanoTime();
+            byPosition.forEach((position, group) -> {
+                AnimeChangePage page = animeChangeService.changesSince(position, properties.getMaxPageSize());
+                if (!page.isLast()) {
+                    requestPoll();
+                }
+                for (Subscriber subscriber : group) {
+                    if (!page.getChanges().isEmpty()) {
+                        send(subscriber, page.getChanges(), now);
+                        subscriber.position = page.getNext();
+                    } else if (now - subscriber.lastSent > properties.getHeartbeat().toNanos()) {
+                        heartbeat(subscriber, now);
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Anime change stream poll failed", e);
+        }
+    }
+
+    private void send(Subscriber subscriber, List<AnimeChange> changes, long now) {
+        try {
+            for (AnimeChange change : changes) {
+                subscriber.emitter.send(SseEmitter.event()
+                        .id(String.valueOf(change.getSeq()))
+                        .name(change.getType().name())
+                        .data(change, MediaType.APPLICATION_JSON));
+            }
+            subscriber.lastSent = now;
+        } catch (IOException | IllegalStateException e) {
+            drop(subscriber, e);
+        }
+    }
+
+    private void heartbeat(Subscriber subscriber, long now) {
+        try {
+            subscriber.emitter.send(SseEmitter.event().comment("keep-alive"));
+            subscriber.lastSent = now;
+        } catch (IOException | IllegalStateException e) {
+            drop(subscriber, e);
+        }
+    }
+
+    private void drop(Subscriber subscriber, Exception e) {
+        log.debug("Dropping anime change subscriber: {}", e.getMessage());
+        subscribers.remove(subscriber);
+        subscriber.emitter.completeWithError(e);
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private long position;
+        private long lastSent = System.nanoTime();
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.tiagomaniero.essentials.feed;
+
+import com.tiagomaniero.essentials.config.AnimeProperties;
+import com.tiagomaniero.essentials.service.AnimeChangeService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.IntervalTask;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+
+/**
+ * Compacts the change log one chunk per transaction so the deletes never hold locks on the whole table.
+ * Running it on several nodes at once is harmless.
+ */
+@Component
+@Log4j2
+@RequiredArgsConstructor
+public class AnimeChangeCompactor implements SchedulingConfigurer {
+
+    private final AnimeChangeService animeChangeService;
+    private final AnimeProperties animeProperties;
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+        long interval = animeProperties.getChanges().getCompactionInterval().toMillis();
+        taskRegistrar.addFixedDelayTask(new IntervalTask(this::compact, interval, interval));
+    }
+
+    public void compact() {
+        long removed = 0;
+        int chunk;
+        while ((chunk = animeChangeService.compactSuperseded()) > 0) {
+            removed += chunk;
+        }
+        int tombstones = animeChangeService.purgeTombstones();
+        log.info("Anime change log compacted, {} superseded entries and {} tombstones removed", removed, tombstones);
+    }
+}
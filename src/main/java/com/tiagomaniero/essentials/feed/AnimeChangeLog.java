@@ -0,0 +1,66 @@
+package com.tiagomaniero.essentials.feed;
+
+import com.tiagomaniero.essentials.domain.AnimeChange;
+import com.tiagomaniero.essentials.event.AnimeChangedEvent;
+import com.tiagomaniero.essentials.repository.AnimeChangeRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Outbox writer: every AnimeChangedEvent published inside a transaction becomes an {@link AnimeChange} inserted
+ * right before that transaction commits, so the log and the anime table never disagree. Events of one
+ * transaction (a whole /batch chunk) go out in a single JDBC batch. changedAt is stamped at that insert, next to
+ * the seq, since the gap check in changesSince reads it as the time the seq was taken.
+ */
+@Component
+@RequiredArgsConstructor
+public class AnimeChangeLog {
+
+    private final AnimeChangeRepository animeChangeRepository;
+
+    @EventListener
+    public void onAnimeChanged(AnimeChangedEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            append(List.of(event));
+            return;
+        }
+        pending().add(event);
+    }
+
+    private void append(List<AnimeChangedEvent> events) {
+        Instant changedAt = Instant.now();
+        animeChangeRepository.appendAll(events.stream()
+                .map(event -> AnimeChange.of(event, changedAt))
+                .collect(Collectors.toList()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<AnimeChangedEvent> pending() {
+        List<AnimeChangedEvent> pending = (List<AnimeChangedEvent>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            List<AnimeChangedEvent> events = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, events);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    append(events);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(AnimeChangeLog.this);
+                }
+            });
+            pending = events;
+        }
+        return pending;
+    }
+}
@@ -1,14 +1,21 @@
 package com.tiagomaniero.essentials.handler;
 
+import com.tiagomaniero.essentials.config.AnimeProperties;
 import com.tiagomaniero.essentials.exception.BadRequestException;
 import com.tiagomaniero.essentials.exception.BadRequestExceptionDetails;
 import com.tiagomaniero.essentials.exception.ExceptionDetails;
+import com.tiagomaniero.essentials.exception.PreconditionFailedException;
+import com.tiagomaniero.essentials.exception.TooManyRequestsException;
 import com.tiagomaniero.essentials.exception.ValidationExceptionDetails;
+import com.tiagomaniero.essentials.exception.WriteBehindPendingException;
+import com.tiagomaniero.essentials.wrapper.AnimeWriteTicket;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.lang.Nullable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -18,12 +25,16 @@ import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExcep
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 @ControllerAdvice
 @Log4j2
+@RequiredArgsConstructor
 public class RestExceptionHandler extends ResponseEntityExceptionHandler {
 
+    private final AnimeProperties animeProperties;
+
     @ExceptionHandler(BadRequestException.class)
     public ResponseEntity<BadRequestExceptionDetails> handleBadRequestException(BadRequestException bre){
         return new ResponseEntity<>(
@@ -39,6 +50,59 @@ public class RestExceptionHandler extends ResponseEntityExceptionHandler {
 
     }
 
+    @ExceptionHandler({PreconditionFailedException.class, ObjectOptimisticLockingFailureException.class})
+    public ResponseEntity<ExceptionDetails> handlePreconditionFailedException(RuntimeException ex){
+        return new ResponseEntity<>(
+                ExceptionDetails.builder()
+                        .timestamp(LocalDateTime.now())
+                        .status(HttpStatus.PRECONDITION_FAILED.value())
+                        .title("Precondition Failed, the anime was changed by another request")
+                        .details(ex.getMessage())
+                        .developerMessage(ex.getClass().getName())
+                        .build()
+                ,HttpStatus.PRECONDITION_FAILED
+        );
+
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<ExceptionDetails> handleRejectedExecutionException(RejectedExecutionException ree){
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(
+                        Math.max(1, animeProperties.getAsync().getRetryAfter().getSeconds())))
+                .body(ExceptionDetails.builder()
+                        .timestamp(LocalDateTime.now())
+                        .status(HttpStatus.SERVICE_UNAVAILABLE.value())
+                        .title("Service Unavailable, too many concurrent requests")
+                        .details(ree.getMessage())
+                        .developerMessage(ree.getClass().getName())
+                        .build());
+
+    }
+
+    // sem Retry-After: o save está no journal, repetir o POST inseriria o anime duas vezes
+    @ExceptionHandler(WriteBehindPendingException.class)
+    public ResponseEntity<AnimeWriteTicket> handleWriteBehindPendingException(WriteBehindPendingException wbpe){
+        log.warn("Write-behind save {} is still pending", wbpe.getTicket(), wbpe);
+        return new ResponseEntity<>(new AnimeWriteTicket(wbpe.getTicket()), HttpStatus.ACCEPTED);
+
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ExceptionDetails> handleTooManyRequestsException(TooManyRequestsException tmre){
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(
+                        Math.max(1, (tmre.getRetryAfter().toMillis() + 999) / 1000)))
+                .body(ExceptionDetails.builder()
+                        .timestamp(LocalDateTime.now())
+                        .status(HttpStatus.TOO_MANY_REQUESTS.value())
+                        .title("Too Many Requests, wait before calling again")
+                        .details(tmre.getMessage())
+                        .developerMessage(tmre.getClass().getName())
+                        .build());
+
+    }
+
     @Override
     protected ResponseEntity<Object> handleMethodArgumentNotValid(
             MethodArgumentNotValidException ex,
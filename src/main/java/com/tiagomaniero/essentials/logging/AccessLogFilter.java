@@ -0,0 +1,72 @@
+package com.tiagomaniero.essentials.logging;
+
+import lombok.extern.log4j.Log4j2;
+import org.apache.logging.log4j.util.Unbox;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Writes one key=value line per request to the "access" logger. The request thread only captures the values;
+ * formatting and I/O happen on the async logger thread (see log4j2.component.properties).
+ */
+@Component
+@Log4j2(topic = "access")
+public class AccessLogFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!log.isInfoEnabled()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            // the security context is only bound to this thread, not to the one completing an async request
+            String user = request.getRemoteUser();
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        log(request, response, user, start);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                log(request, response, user, start);
+            }
+        }
+    }
+
+    private static void log(HttpServletRequest request, HttpServletResponse response, String user, long start) {
+        log.info("method={} uri={} status={} durationMs={} user={} remote={}",
+                request.getMethod(),
+                request.getRequestURI(),
+                Unbox.box(response.getStatus()),
+                Unbox.box((System.nanoTime() - start) / 1_000_000),
+                user,
+                request.getRemoteAddr());
+    }
+}
@@ -0,0 +1,71 @@
+package com.tiagomaniero.essentials.metrics;
+
+import com.tiagomaniero.essentials.controller.AnimeController;
+import com.tiagomaniero.essentials.wrapper.AnimeChangePage;
+import com.tiagomaniero.essentials.wrapper.CursorPage;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.Collection;
+
+/**
+ * Records how many animes each AnimeController endpoint returns as anime.http.response.rows.
+ */
+@ControllerAdvice(assignableTypes = AnimeController.class)
+@RequiredArgsConstructor
+public class ResponseRowsAdvice implements ResponseBodyAdvice<Object> {
+
+    public static final String METRIC_NAME = "anime.http.response.rows";
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        long rows = rowsOf(body);
+        if (rows >= 0 && request instanceof ServletServerHttpRequest) {
+            Object uri = ((ServletServerHttpRequest) request).getServletRequest()
+                    .getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            DistributionSummary.builder(METRIC_NAME)
+                    .baseUnit("rows")
+                    .tag("method", request.getMethodValue())
+                    .tag("uri", uri == null ? "UNKNOWN" : uri.toString())
+                    .register(meterRegistry)
+                    .record(rows);
+        }
+        return body;
+    }
+
+    static long rowsOf(Object body) {
+        if (body instanceof Slice) {
+            return ((Slice<?>) body).getNumberOfElements();
+        }
+        if (body instanceof CursorPage) {
+            return ((CursorPage<?>) body).getNumberOfElements();
+        }
+        if (body instanceof AnimeChangePage) {
+            return ((AnimeChangePage) body).getNumberOfElements();
+        }
+        if (body instanceof Collection) {
+            return ((Collection<?>) body).size();
+        }
+        return -1;
+    }
+}
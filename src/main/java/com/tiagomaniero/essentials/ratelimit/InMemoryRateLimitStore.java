@@ -0,0 +1,38 @@
+package com.tiagomaniero.essentials.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tiagomaniero.essentials.config.AnimeProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+@Component
+public class InMemoryRateLimitStore implements RateLimitStore {
+
+    private final Cache<String, TokenBucket> buckets;
+    private final LongSupplier nanoClock;
+
+    @Autowired
+    public InMemoryRateLimitStore(AnimeProperties animeProperties) {
+        this(animeProperties, System::nanoTime);
+    }
+
+    InMemoryRateLimitStore(AnimeProperties animeProperties, LongSupplier nanoClock) {
+        AnimeProperties.RateLimit rateLimit = animeProperties.getRateLimit();
+        // um bucket parado por um período inteiro está cheio, igual a um novo
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(rateLimit.getMaximumBuckets())
+                .expireAfterAccess(rateLimit.getPeriod())
+                .build();
+        this.nanoClock = nanoClock;
+    }
+
+    @Override
+    public RateLimitResult tryConsume(String key, long limit, Duration period) {
+        long now = nanoClock.getAsLong();
+        return buckets.get(key, ignored -> new TokenBucket(now)).tryConsume(now, limit, period);
+    }
+}
@@ -0,0 +1,17 @@
+package com.tiagomaniero.essentials.ratelimit;
+
+import com.tiagomaniero.essentials.async.AnimeDbExecutor.OperationClass;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Quota a handler method is charged against. Without it GET is charged as READ and other methods as WRITE.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RateLimitClass {
+    OperationClass value();
+}
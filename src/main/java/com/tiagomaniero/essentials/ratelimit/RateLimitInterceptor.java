@@ -0,0 +1,107 @@
+package com.tiagomaniero.essentials.ratelimit;
+
+import com.tiagomaniero.essentials.async.AnimeDbExecutor.OperationClass;
+import com.tiagomaniero.essentials.config.AnimeProperties;
+import com.tiagomaniero.essentials.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
+
+/**
+ * Charges each request one token from the bucket of its principal and {@link OperationClass}, the bucket size
+ * comes from the quota of the principal's role. Answers with the RateLimit-Limit, RateLimit-Remaining and
+ * RateLimit-Reset headers, and 429 with Retry-After once the bucket is empty.
+ */
+@Component
+@RequiredArgsConstructor
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    public static final String METRIC_NAME = "anime.ratelimit.throttled";
+    private static final String ROLE_PREFIX = "ROLE_";
+    private static final String ANONYMOUS = "anonymous";
+
+    private final RateLimitStore rateLimitStore;
+    private final AnimeProperties animeProperties;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        //o dispatch assíncrono dos CompletableFuture já foi cobrado
+        if (request.getDispatcherType() != DispatcherType.REQUEST || !(handler instanceof HandlerMethod)) {
+            return true;
+        }
+        AnimeProperties.RateLimit rateLimit = animeProperties.getRateLimit();
+        OperationClass operationClass = operationClassOf(request, (HandlerMethod) handler);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        boolean authenticated = authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken);
+
+        String role = ANONYMOUS;
+        long limit = limitOf(rateLimit.getAnonymous(), operationClass);
+        if (authenticated) {
+            for (GrantedAuthority authority : authentication.getAuthorities()) {
+                String name = authority.getAuthority().startsWith(ROLE_PREFIX)
+                        ? authority.getAuthority().substring(ROLE_PREFIX.length())
+                        : authority.getAuthority();
+                AnimeProperties.Quota quota = rateLimit.getRoles().get(name);
+                if (quota != null && (role.equals(ANONYMOUS) || limitOf(quota, operationClass) > limit)) {
+                    role = name;
+                    limit = limitOf(quota, operationClass);
+                }
+            }
+        }
+        String key = (authenticated ? "user:" + authentication.getName() : "ip:" + request.getRemoteAddr())
+                + ":" + operationClass;
+
+        RateLimitResult result = rateLimitStore.tryConsume(key, limit, rateLimit.getPeriod());
+        response.setHeader("RateLimit-Limit", String.valueOf(result.getLimit()));
+        response.setHeader("RateLimit-Remaining", String.valueOf(result.getRemaining()));
+        response.setHeader("RateLimit-Reset", String.valueOf(ceilSeconds(result.getReset())));
+        if (!result.isAllowed()) {
+            Counter.builder(METRIC_NAME)
+                    .tag("class", operationClass.name().toLowerCase())
+                    .tag("role", role)
+                    .register(meterRegistry)
+                    .increment();
+            throw new TooManyRequestsException("Rate limit of " + result.getLimit() + " " + operationClass.name().toLowerCase()
+                    + " requests per " + rateLimit.getPeriod() + " exceeded", result.getRetryAfter());
+        }
+        return true;
+    }
+
+    private static OperationClass operationClassOf(HttpServletRequest request, HandlerMethod handler) {
+        RateLimitClass rateLimitClass = handler.getMethodAnnotation(RateLimitClass.class);
+        if (rateLimitClass != null) {
+            return rateLimitClass.value();
+        }
+        return HttpMethod.GET.matches(request.getMethod()) ? OperationClass.READ : OperationClass.WRITE;
+    }
+
+    private static long limitOf(AnimeProperties.Quota quota, OperationClass operationClass) {
+        switch (operationClass) {
+            case SCAN:
+                return quota.getScan();
+            case WRITE:
+                return quota.getWrite();
+            default:
+                return quota.getRead();
+        }
+    }
+
+    static long ceilSeconds(Duration duration) {
+        return (duration.toMillis() + 999) / 1000;
+    }
+}
@@ -0,0 +1,18 @@
+package com.tiagomaniero.essentials.ratelimit;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+@AllArgsConstructor
+public class RateLimitResult {
+    private final boolean allowed;
+    private final long limit;
+    private final long remaining;
+    /** until the bucket is full again */
+    private final Duration reset;
+    /** until the next token, zero when allowed */
+    private final Duration retryAfter;
+}
@@ -0,0 +1,17 @@
+package com.tiagomaniero.essentials.ratelimit;
+
+import java.time.Duration;
+
+/**
+ * Holds the token buckets. The in-memory store limits each node on its own, a shared store (Redis, Hazelcast)
+ * can implement this to enforce the quotas across nodes.
+ */
+public interface RateLimitStore {
+
+    /**
+     * Takes one token from the bucket named key, a missing bucket starts full.
+     *
+     * @param limit  tokens refilled per period, also the largest burst
+     */
+    RateLimitResult tryConsume(String key, long limit, Duration period);
+}
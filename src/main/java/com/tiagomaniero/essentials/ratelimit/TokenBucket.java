@@ -0,0 +1,39 @@
+package com.tiagomaniero.essentials.ratelimit;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket kept as a single theoretical arrival time (GCRA): the instant the bucket would be full again.
+ * Taking a token moves it forward by period / limit with a compare-and-set, so there is no lock and no refill
+ * task.
+ */
+class TokenBucket {
+
+    private final AtomicLong theoreticalArrival;
+
+    TokenBucket(long nowNanos) {
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    RateLimitResult tryConsume(long nowNanos, long limit, Duration period) {
+        if (limit <= 0) {
+            return new RateLimitResult(false, 0, 0, period, period);
+        }
+        long interval = Math.max(1, period.toNanos() / limit);
+        long burst = interval * limit;
+        while (true) {
+            long arrival = theoreticalArrival.get();
+            long next = Math.max(arrival, nowNanos) + interval;
+            long allowedAt = next - burst;
+            if (nowNanos < allowedAt) {
+                return new RateLimitResult(false, limit, 0,
+                        Duration.ofNanos(arrival - nowNanos), Duration.ofNanos(allowedAt - nowNanos));
+            }
+            if (theoreticalArrival.compareAndSet(arrival, next)) {
+                return new RateLimitResult(true, limit, (burst - (next - nowNanos)) / interval,
+                        Duration.ofNanos(next - nowNanos), Duration.ZERO);
+            }
+        }
+    }
+}
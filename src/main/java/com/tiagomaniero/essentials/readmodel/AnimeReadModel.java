@@ -0,0 +1,205 @@
+package com.tiagomaniero.essentials.readmodel;
+
+import com.tiagomaniero.essentials.config.AnimeProperties;
+import com.tiagomaniero.essentials.domain.Anime;
+import com.tiagomaniero.essentials.domain.AnimeChange;
+import com.tiagomaniero.essentials.event.AnimeChangedEvent;
+import com.tiagomaniero.essentials.repository.AnimeRepository;
+import com.tiagomaniero.essentials.service.AnimeChangeService;
+import com.tiagomaniero.essentials.wrapper.AnimeChangePage;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.IntervalTask;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Optional copy of the whole catalogue in memory, serving findById, list and listAll without the database.
+ * Loaded at startup together with the settled change log head in one repeatable-read transaction, then kept
+ * current by replaying the change log in seq order: right after every local commit and every poll-interval for the
+ * other nodes. Changes the loaded rows already contain are replayed too and skipped by their version. Readers work on an immutable {@link AnimeSnapshot}, a page never mixes two states.
+ */
+@Component
+@Log4j2
+public class AnimeReadModel implements SchedulingConfigurer {
+
+    private static final Sort BY_ID = Sort.by("id");
+
+    private final AnimeProperties.ReadModel properties;
+    private final int pageSize;
+    private final AnimeRepository animeRepository;
+    private final AnimeChangeService animeChangeService;
+    private final EntityManager entityManager;
+    private final TransactionTemplate loadTransaction;
+    private final TransactionTemplate refreshTransaction;
+    private final Timer lag;
+    private final AtomicLong refreshRequests = new AtomicLong();
+
+    private volatile AnimeSnapshot snapshot = AnimeSnapshot.EMPTY;
+    private volatile boolean ready;
+    private long position;
+    private long refreshed;
+
+    public AnimeReadModel(AnimeProperties animeProperties, AnimeRepository animeRepository,
+                          AnimeChangeService animeChangeService,
+                          EntityManager entityManager, PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry) {
+        this.properties = animeProperties.getReadModel();
+        this.pageSize = animeProperties.getChanges().getMaxPageSize();
+        this.animeRepository = animeRepository;
+        this.animeChangeService = animeChangeService;
+        this.entityManager = entityManager;
+        this.loadTransaction = new TransactionTemplate(transactionManager);
+        this.loadTransaction.setReadOnly(true);
+        this.loadTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        // roda depois do commit de outra transação, que ainda está presa à thread
+        this.refreshTransaction = new TransactionTemplate(transactionManager);
+        this.refreshTransaction.setReadOnly(true);
+        this.refreshTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.lag = Timer.builder("anime.readmodel.lag")
+                .description("time from the commit of a change to the read model serving it")
+                .register(meterRegistry);
+        Gauge.builder("anime.readmodel.footprint", this, readModel -> readModel.snapshot.footprint())
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("anime.readmodel.size", this, readModel -> readModel.snapshot.size())
+                .register(meterRegistry);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * @return true when the page can be cut from memory: the model is loaded and the page is unsorted or by id
+     */
+    public boolean canServe(Pageable pageable) {
+        Sort sort = pageable.getSort();
+        return ready && (sort.isUnsorted() || sort.equals(BY_ID));
+    }
+
+    public Optional<Anime> findById(Long id) {
+        return snapshot.find(id);
+    }
+
+    public Page<Anime> page(Pageable pageable) {
+        AnimeSnapshot current = snapshot;
+        List<Anime> content = current.slice(pageable.getOffset(), pageable.getOffset() + pageable.getPageSize());
+        return new PageImpl<>(content, pageable, current.size());
+    }
+
+    public List<Anime> listAll() {
+        AnimeSnapshot current = snapshot;
+        return current.slice(0, current.size());
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+        if (properties.isEnabled()) {
+            long interval = properties.getPollInterval().toMillis();
+            taskRegistrar.addFixedDelayTask(new IntervalTask(this::poll, interval, interval));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long start = System.nanoTime();
+        loadTransaction.executeWithoutResult(status -> {
+            // o settled head fica abaixo de qualquer seq que ainda pode commitar; o que o snapshot já tem,
+            // o replay ignora pela versão. É o primeiro statement e lê do primário, então a carga toda vem dele
+            long head = animeChangeService.settledHead();
+            AnimeSnapshot.Editor editor = AnimeSnapshot.EMPTY.edit();
+            try (Stream<Anime> animes = animeRepository.streamAll()) {
+                animes.forEach(anime -> {
+                    editor.put(anime.getId(), anime.getName(), anime.getVersion());
+                    entityManager.detach(anime);
+                });
+            }
+            synchronized (this) {
+                snapshot = editor.publish();
+                position = head;
+                ready = true;
+            }
+        });
+        refresh();
+        log.info("Anime read model loaded {} animes in {} ms", snapshot.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // o próximo GET deste nó já enxerga o próprio commit; roda antes do AnimePageCache invalidar as páginas
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAnimeChanged(AnimeChangedEvent event) {
+        refresh();
+    }
+
+    /**
+     * Applies the changes committed since the last refresh. A caller whose commit is already covered by a refresh
+     * that started after it returns without querying.
+     */
+    public void refresh() {
+        long requested = refreshRequests.incrementAndGet();
+        synchronized (this) {
+            if (!ready || refreshed >= requested) {
+                return;
+            }
+            long covered = refreshRequests.get();
+            refreshTransaction.executeWithoutResult(status -> catchUp());
+            refreshed = covered;
+        }
+    }
+
+    private void poll() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.warn("Anime read model refresh failed", e);
+        }
+    }
+
+    private void catchUp() {
+        AnimeSnapshot.Editor editor = snapshot.edit();
+        boolean changed = false;
+        AnimeChangePage page;
+        do {
+            page = animeChangeService.changesSince(position, pageSize);
+            Instant now = Instant.now();
+            for (AnimeChange change : page.getChanges()) {
+                changed |= change.getType() == AnimeChangedEvent.Type.DELETED
+                        ? editor.remove(change.getAnimeId())
+                        : editor.put(change.getAnimeId(), change.getName(), change.getVersion());
+                lag.record(Duration.between(change.getChangedAt(), now).isNegative()
+                        ? Duration.ZERO : Duration.between(change.getChangedAt(), now));
+            }
+            position = page.getNext();
+        } while (!page.isLast() && page.getNumberOfElements() > 0);
+        if (changed) {
+            snapshot = editor.publish();
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.tiagomaniero.essentials.readmodel;
+
+import com.tiagomaniero.essentials.domain.Anime;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Immutable catalogue in id order. Ids and versions sit in primitive arrays looked up by binary search, names
+ * are UTF-8 in one byte arena. Snapshots share their arrays: an editor only writes past the end a published
+ * snapshot reads and copies the arrays before changing anything inside them, so a snapshot never changes
+ * under a reader.
+ */
+final class AnimeSnapshot {
+
+    static final AnimeSnapshot EMPTY = new AnimeSnapshot(new long[0], new long[0], new int[0], new int[0],
+            new byte[0], 0, 0, 0);
+
+    private static final long NO_VERSION = Long.MIN_VALUE;
+    private static final int MIN_CAPACITY = 16;
+    private static final int MIN_COMPACTION_BYTES = 64 * 1024;
+
+    private final long[] ids;
+    private final long[] versions;
+    private final int[] nameOffsets;
+    private final int[] nameLengths;
+    private final byte[] names;
+    private final int size;
+    private final int namesSize;
+    private final int deadBytes;
+
+    private AnimeSnapshot(long[] ids, long[] versions, int[] nameOffsets, int[] nameLengths, byte[] names,
+                          int size, int namesSize, int deadBytes) {
+        this.ids = ids;
+        this.versions = versions;
+        this.nameOffsets = nameOffsets;
+        this.nameLengths = nameLengths;
+        this.names = names;
+        this.size = size;
+        this.namesSize = namesSize;
+        this.deadBytes = deadBytes;
+    }
+
+    int size() {
+        return size;
+    }
+
+    Optional<Anime> find(long id) {
+        int index = Arrays.binarySearch(ids, 0, size, id);
+        return index < 0 ? Optional.empty() : Optional.of(get(index));
+    }
+
+    /**
+     * @return the animes from position from (inclusive) to to (exclusive), clamped to the catalogue
+     */
+    List<Anime> slice(long from, long to) {
+        int start = (int) Math.min(Math.max(from, 0), size);
+        int end = (int) Math.min(Math.max(to, start), size);
+        List<Anime> animes = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            animes.add(get(i));
+        }
+        return animes;
+    }
+
+    /**
+     * Bytes held by the arrays, including the spare capacity and the names left behind by updates.
+     */
+    long footprint() {
+        return (long) ids.length * Long.BYTES + (long) versions.length * Long.BYTES
+                + (long) nameOffsets.length * Integer.BYTES + (long) nameLengths.length * Integer.BYTES
+                + names.length;
+    }
+
+    Editor edit() {
+        return new Editor(this);
+    }
+
+    private Anime get(int index) {
+        return Anime.builder()
+                .id(ids[index])
+                .name(new String(names, nameOffsets[index], nameLengths[index], StandardCharsets.UTF_8))
+                .version(versions[index] == NO_VERSION ? null : versions[index])
+                .build();
+    }
+
+    /**
+     * Applies changes on top of a snapshot, one editor at a time.
+     */
+    static final class Editor {
+        private long[] ids;
+        private long[] versions;
+        private int[] nameOffsets;
+        private int[] nameLengths;
+        private byte[] names;
+        private int size;
+        private int namesSize;
+        private int deadBytes;
+        private boolean owned;
+
+        private Editor(AnimeSnapshot base) {
+            this.ids = base.ids;
+            this.versions = base.versions;
+            this.nameOffsets = base.nameOffsets;
+            this.nameLengths = base.nameLengths;
+            this.names = base.names;
+            this.size = base.size;
+            this.namesSize = base.namesSize;
+            this.deadBytes = base.deadBytes;
+        }
+
+        /**
+         * @param version null when unknown, the anime then has no version until a change that carries one
+         * @return false when the anime already has this version or a newer one
+         */
+        boolean put(long id, String name, Long version) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                long current = versions[index];
+                if (version != null && current != NO_VERSION && version <= current) {
+                    return false;
+                }
+                own();
+                deadBytes += nameLengths[index];
+                setName(index, name);
+                versions[index] = version == null ? NO_VERSION : version;
+                return true;
+            }
+            int insertAt = -index - 1;
+            ensureCapacity(size + 1);
+            if (insertAt < size) {
+                // ids chegam quase sempre em ordem, o meio do array só muda numa cópia própria
+                own();
+                System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+                System.arraycopy(versions, insertAt, versions, insertAt + 1, size - insertAt);
+                System.arraycopy(nameOffsets, insertAt, nameOffsets, insertAt + 1, size - insertAt);
+                System.arraycopy(nameLengths, insertAt, nameLengths, insertAt + 1, size - insertAt);
+            }
+            ids[insertAt] = id;
+            versions[insertAt] = version == null ? NO_VERSION : version;
+            setName(insertAt, name);
+            size++;
+            return true;
+        }
+
+        boolean remove(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) {
+                return false;
+            }
+            own();
+            deadBytes += nameLengths[index];
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            System.arraycopy(versions, index + 1, versions, index, size - index - 1);
+            System.arraycopy(nameOffsets, index + 1, nameOffsets, index, size - index - 1);
+            System.arraycopy(nameLengths, index + 1, nameLengths, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        AnimeSnapshot publish() {
+            if (deadBytes > MIN_COMPACTION_BYTES && deadBytes > namesSize - deadBytes) {
+                compactNames();
+            }
+            return new AnimeSnapshot(ids, versions, nameOffsets, nameLengths, names, size, namesSize, deadBytes);
+        }
+
+        private void setName(int index, String name) {
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            if (namesSize + bytes.length > names.length) {
+                names = Arrays.copyOf(names, Math.max(namesSize + bytes.length, names.length * 2));
+            }
+            System.arraycopy(bytes, 0, names, namesSize, bytes.length);
+            nameOffsets[index] = namesSize;
+            nameLengths[index] = bytes.length;
+            namesSize += bytes.length;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity <= ids.length) {
+                return;
+            }
+            int grown = Math.max(capacity, Math.max(MIN_CAPACITY, ids.length + (ids.length >> 1)));
+            ids = Arrays.copyOf(ids, grown);
+            versions = Arrays.copyOf(versions, grown);
+            nameOffsets = Arrays.copyOf(nameOffsets, grown);
+            nameLengths = Arrays.copyOf(nameLengths, grown);
+            owned = true;
+        }
+
+        private void own() {
+            if (owned) {
+                return;
+            }
+            ids = ids.clone();
+            versions = versions.clone();
+            nameOffsets = nameOffsets.clone();
+            nameLengths = nameLengths.clone();
+            owned = true;
+        }
+
+        private void compactNames() {
+            own();
+            byte[] compacted = new byte[Math.max(MIN_CAPACITY, (namesSize - deadBytes) * 2)];
+            int position = 0;
+            for (int i = 0; i < size; i++) {
+                System.arraycopy(names, nameOffsets[i], compacted, position, nameLengths[i]);
+                nameOffsets[i] = position;
+                position += nameLengths[i];
+            }
+            names = compacted;
+            namesSize = position;
+            deadBytes = 0;
+        }
+    }
+}
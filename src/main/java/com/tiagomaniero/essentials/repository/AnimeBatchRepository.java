@@ -0,0 +1,46 @@
+package com.tiagomaniero.essentials.repository;
+
+import com.tiagomaniero.essentials.domain.Anime;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plain JDBC batch insert. Hibernate does not batch inserts of IDENTITY ids, so bulk loads go around it;
+ * on MySQL rewriteBatchedStatements turns the batch into multi-row inserts.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AnimeBatchRepository {
+
+    private static final String INSERT = "insert into anime (name, version) values (?, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public List<Long> insertAll(List<Anime> animes) {
+        return jdbcTemplate.execute((ConnectionCallback<List<Long>>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT, Statement.RETURN_GENERATED_KEYS)) {
+                for (Anime anime : animes) {
+                    statement.setString(1, anime.getName());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+
+                List<Long> ids = new ArrayList<>(animes.size());
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    while (keys.next()) {
+                        ids.add(keys.getLong(1));
+                    }
+                }
+                return ids;
+            }
+        });
+    }
+}
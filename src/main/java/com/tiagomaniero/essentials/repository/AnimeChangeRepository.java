@@ -0,0 +1,29 @@
+package com.tiagomaniero.essentials.repository;
+
+import com.tiagomaniero.essentials.domain.AnimeChange;
+import com.tiagomaniero.essentials.event.AnimeChangedEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface AnimeChangeRepository extends JpaRepository<AnimeChange, Long>, AnimeChangeRepositoryCustom {
+
+    List<AnimeChange> findBySeqGreaterThanOrderBySeqAsc(Long seq, Pageable pageable);
+
+    @Query("select coalesce(max(c.seq), 0) from AnimeChange c where c.changedAt < :before")
+    long findHeadBefore(@Param("before") Instant before);
+
+    // o MySQL não deixa o DELETE ler a própria tabela numa subquery, então os seqs são buscados antes
+    @Query("select c.seq from AnimeChange c where c.changedAt < :before and exists " +
+            "(select n.seq from AnimeChange n where n.animeId = c.animeId and n.seq > c.seq)")
+    List<Long> findSupersededBefore(@Param("before") Instant before, Pageable pageable);
+
+    @Modifying
+    @Query("delete from AnimeChange c where c.type = :type and c.changedAt < :before")
+    int deleteByTypeAndChangedAtBefore(@Param("type") AnimeChangedEvent.Type type, @Param("before") Instant before);
+}
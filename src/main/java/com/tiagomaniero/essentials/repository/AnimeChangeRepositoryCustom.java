@@ -0,0 +1,13 @@
+package com.tiagomaniero.essentials.repository;
+
+import com.tiagomaniero.essentials.domain.AnimeChange;
+
+import java.util.List;
+
+public interface AnimeChangeRepositoryCustom {
+
+    /**
+     * Inserts the changes with one JDBC batch in the current transaction, seq is assigned by the database.
+     */
+    void appendAll(List<AnimeChange> changes);
+}
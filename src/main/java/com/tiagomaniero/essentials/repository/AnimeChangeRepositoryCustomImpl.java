@@ -0,0 +1,33 @@
+package com.tiagomaniero.essentials.repository;
+
+import com.tiagomaniero.essentials.domain.AnimeChange;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class AnimeChangeRepositoryCustomImpl implements AnimeChangeRepositoryCustom {
+
+    private static final String INSERT =
+            "insert into anime_change (type, anime_id, name, version, changed_at) values (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void appendAll(List<AnimeChange> changes) {
+        jdbcTemplate.batchUpdate(INSERT, changes, changes.size(), (statement, change) -> {
+            statement.setString(1, change.getType().name());
+            statement.setLong(2, change.getAnimeId());
+            statement.setString(3, change.getName());
+            if (change.getVersion() == null) {
+                statement.setNull(4, Types.BIGINT);
+            } else {
+                statement.setLong(4, change.getVersion());
+            }
+            statement.setTimestamp(5, Timestamp.from(change.getChangedAt()));
+        });
+    }
+}
@@ -1,12 +1,41 @@
 package com.tiagomaniero.essentials.repository;
 
 import com.tiagomaniero.essentials.domain.Anime;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
 import java.util.List;
+import java.util.stream.Stream;
 
-public interface AnimeRepository extends JpaRepository<Anime, Long> {
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+public interface AnimeRepository extends JpaRepository<Anime, Long>, AnimeRepositoryCustom {
 
     List<Anime> findByName(String name);
 
+    Page<Anime> findByNameStartingWithIgnoreCase(String name, Pageable pageable);
+
+    List<Anime> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @QueryHints(value = {
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_CACHEABLE, value = "false"),
+            @QueryHint(name = HINT_READONLY, value = "true")
+    })
+    @Query("select a from Anime a")
+    Stream<Anime> streamAll();
+
+    // DELETE direto, sem carregar a entidade antes como o deleteById do JpaRepository
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Anime a where a.id = :id")
+    int deleteDirectlyById(@Param("id") Long id);
+
 }
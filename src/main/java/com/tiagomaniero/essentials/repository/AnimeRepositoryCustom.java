@@ -0,0 +1,15 @@
+package com.tiagomaniero.essentials.repository;
+
+import java.util.Map;
+import java.util.Optional;
+
+public interface AnimeRepositoryCustom {
+
+    /**
+     * Runs a single UPDATE that sets only the given attributes and bumps the version.
+     *
+     * @param expectedVersion when not null the row is only updated while it still has this version
+     * @return the new version, empty when the id does not exist or the version did not match
+     */
+    Optional<Long> updateAttributes(Long id, Long expectedVersion, Map<String, Object> attributes);
+}
@@ -0,0 +1,48 @@
+package com.tiagomaniero.essentials.repository;
+
+import com.tiagomaniero.essentials.domain.Anime;
+import lombok.RequiredArgsConstructor;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.Map;
+import java.util.Optional;
+
+@RequiredArgsConstructor
+public class AnimeRepositoryCustomImpl implements AnimeRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public Optional<Long> updateAttributes(Long id, Long expectedVersion, Map<String, Object> attributes) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Anime> update = criteriaBuilder.createCriteriaUpdate(Anime.class);
+        Root<Anime> root = update.from(Anime.class);
+
+        attributes.forEach((attribute, value) -> update.set(root.get(attribute), value));
+        update.set(root.<Long>get("version"), criteriaBuilder.sum(root.<Long>get("version"), 1L));
+
+        Predicate byId = criteriaBuilder.equal(root.get("id"), id);
+        update.where(expectedVersion == null
+                ? byId
+                : criteriaBuilder.and(byId, criteriaBuilder.equal(root.get("version"), expectedVersion)));
+
+        // bulk updates bypass the persistence context, drop any copy it holds of this row
+        entityManager.flush();
+        int updated = entityManager.createQuery(update).executeUpdate();
+        entityManager.clear();
+        if (updated == 0) {
+            return Optional.empty();
+        }
+        if (expectedVersion != null) {
+            return Optional.of(expectedVersion + 1);
+        }
+        // the UPDATE holds the row lock until commit, so reading it back in this transaction sees our own version
+        return Optional.of(entityManager.createQuery("select a.version from Anime a where a.id = :id", Long.class)
+                .setParameter("id", id)
+                .getSingleResult());
+    }
+}
@@ -0,0 +1,22 @@
+package com.tiagomaniero.essentials.requests;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.Size;
+
+/**
+ * Fields left null are not changed.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AnimePatchRequestBody {
+    @Size(min = 1, message = "The name cannot be empty")
+    @Schema(description = "This is the anime's name", example = "Tensei Shittara")
+    private String name;
+}
@@ -1,11 +1,18 @@
 package com.tiagomaniero.essentials.requests;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotEmpty;
 
 @Data
 @Builder
+@AllArgsConstructor
+@NoArgsConstructor
 public class AnimePutRequestBody {
     private Long id;
+    @NotEmpty(message = "The name cannot be empty")
     private String name;
 }
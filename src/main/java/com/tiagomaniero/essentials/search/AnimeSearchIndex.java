@@ -0,0 +1,246 @@
+package com.tiagomaniero.essentials.search;
+
+import com.tiagomaniero.essentials.config.AnimeProperties;
+import com.tiagomaniero.essentials.domain.Anime;
+import com.tiagomaniero.essentials.event.AnimeChangedEvent;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory inverted index of anime names. Names are lower-cased, stripped of accents and split into terms;
+ * a term matches a query token exactly, by prefix or, for longer tokens, within one edit (typo).
+ * Typo lookups use a one-deletion dictionary so they never scan the whole term list.
+ * Writes are serialized, reads are lock-free.
+ */
+@Component
+public class AnimeSearchIndex {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final int EXACT = 3;
+    private static final int PREFIX = 2;
+    private static final int FUZZY = 1;
+
+    private final int fuzzyMinLength;
+
+    // id, nome e versão de cada anime indexado, a busca devolve a versão para o If-Match de quem vai editar
+    private final Map<Long, Anime> animes = new ConcurrentHashMap<>();
+    private final ConcurrentNavigableMap<String, Set<Long>> postings = new ConcurrentSkipListMap<>();
+    private final Map<String, Set<String>> deletions = new ConcurrentHashMap<>();
+    private final Set<Long> removedWhileLoading = new HashSet<>();
+    private volatile boolean ready;
+
+    public AnimeSearchIndex(AnimeProperties animeProperties) {
+        this.fuzzyMinLength = animeProperties.getSearch().getFuzzyMinLength();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public synchronized void markReady() {
+        removedWhileLoading.clear();
+        ready = true;
+    }
+
+    public synchronized void index(Anime anime) {
+        unindex(anime.getId());
+        if (anime.getName() == null) {
+            return;
+        }
+        animes.put(anime.getId(), copyOf(anime));
+        for (String term : tokenize(anime.getName())) {
+            Set<Long> ids = postings.get(term);
+            if (ids == null) {
+                ids = ConcurrentHashMap.newKeySet();
+                postings.put(term, ids);
+                deletionsOf(term).forEach(deletion ->
+                        deletions.computeIfAbsent(deletion, d -> ConcurrentHashMap.newKeySet()).add(term));
+            }
+            ids.add(anime.getId());
+        }
+    }
+
+    /**
+     * Used by the startup load, an anime already indexed or removed by a write event while the load
+     * was running is newer than the row read by the load and is left alone.
+     */
+    public synchronized void indexIfAbsent(Anime anime) {
+        if (!animes.containsKey(anime.getId()) && !removedWhileLoading.contains(anime.getId())) {
+            index(anime);
+        }
+    }
+
+    public synchronized void remove(Long id) {
+        if (!ready) {
+            removedWhileLoading.add(id);
+        }
+        unindex(id);
+    }
+
+    private void unindex(Long id) {
+        Anime indexed = animes.remove(id);
+        if (indexed == null) {
+            return;
+        }
+        for (String term : tokenize(indexed.getName())) {
+            Set<Long> ids = postings.get(term);
+            if (ids == null) {
+                continue;
+            }
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                postings.remove(term);
+                deletionsOf(term).forEach(deletion -> {
+                    Set<String> terms = deletions.get(deletion);
+                    if (terms != null && terms.remove(term) && terms.isEmpty()) {
+                        deletions.remove(deletion);
+                    }
+                });
+            }
+        }
+    }
+
+    public Page<Anime> search(String query, Pageable pageable) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return Page.empty(pageable);
+        }
+
+        Map<Long, Integer> scores = null;
+        for (String token : tokens) {
+            Map<Long, Integer> tokenScores = match(token);
+            if (scores == null) {
+                scores = tokenScores;
+            } else {
+                scores.keySet().retainAll(tokenScores.keySet());
+                scores.replaceAll((id, score) -> score + tokenScores.get(id));
+            }
+            if (scores.isEmpty()) {
+                return Page.empty(pageable);
+            }
+        }
+
+        String normalizedQuery = normalize(query).trim();
+        List<Anime> matches = new ArrayList<>(scores.size());
+        Map<Long, Integer> ranks = new HashMap<>(scores.size());
+        scores.forEach((id, score) -> {
+            Anime indexed = animes.get(id);
+            if (indexed != null) {
+                matches.add(copyOf(indexed));
+                ranks.put(id, normalize(indexed.getName()).startsWith(normalizedQuery) ? score + EXACT : score);
+            }
+        });
+        matches.sort(Comparator.<Anime>comparingInt(anime -> ranks.get(anime.getId())).reversed()
+                .thenComparingInt(anime -> anime.getName().length())
+                .thenComparing(Anime::getId));
+
+        int from = (int) Math.min(pageable.getOffset(), matches.size());
+        int to = Math.min(from + pageable.getPageSize(), matches.size());
+        return new PageImpl<>(new ArrayList<>(matches.subList(from, to)), pageable, matches.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAnimeChanged(AnimeChangedEvent event) {
+        if (event.getType() == AnimeChangedEvent.Type.DELETED) {
+            remove(event.getId());
+        } else {
+            index(event.getAnime());
+        }
+    }
+
+    // Anime é mutável, o índice não guarda nem devolve a instância de quem chamou
+    private static Anime copyOf(Anime anime) {
+        return Anime.builder().id(anime.getId()).name(anime.getName()).version(anime.getVersion()).build();
+    }
+
+    private Map<Long, Integer> match(String token) {
+        Map<Long, Integer> scores = new HashMap<>();
+        postings.subMap(token, true, token + Character.MAX_VALUE, false).forEach((term, ids) -> {
+            int score = term.length() == token.length() ? EXACT : PREFIX;
+            ids.forEach(id -> scores.merge(id, score, Math::max));
+        });
+        if (token.length() >= fuzzyMinLength) {
+            for (String term : fuzzyTerms(token)) {
+                postings.getOrDefault(term, Collections.emptySet())
+                        .forEach(id -> scores.merge(id, FUZZY, Math::max));
+            }
+        }
+        return scores;
+    }
+
+    private Set<String> fuzzyTerms(String token) {
+        Set<String> candidates = new HashSet<>(deletions.getOrDefault(token, Collections.emptySet()));
+        for (String deletion : deletionsOf(token)) {
+            if (postings.containsKey(deletion)) {
+                candidates.add(deletion);
+            }
+            candidates.addAll(deletions.getOrDefault(deletion, Collections.emptySet()));
+        }
+        candidates.removeIf(term -> !withinOneEdit(token, term));
+        return candidates;
+    }
+
+    private static Set<String> deletionsOf(String term) {
+        Set<String> variants = new HashSet<>();
+        for (int i = 0; i < term.length(); i++) {
+            variants.add(term.substring(0, i) + term.substring(i + 1));
+        }
+        return variants;
+    }
+
+    // insertion, deletion, substitution or swap of two adjacent characters
+    static boolean withinOneEdit(String a, String b) {
+        if (Math.abs(a.length() - b.length()) > 1) {
+            return false;
+        }
+        if (a.length() != b.length()) {
+            String shorter = a.length() < b.length() ? a : b;
+            String longer = a.length() < b.length() ? b : a;
+            int i = 0;
+            while (i < shorter.length() && shorter.charAt(i) == longer.charAt(i)) {
+                i++;
+            }
+            return shorter.regionMatches(i, longer, i + 1, shorter.length() - i);
+        }
+        int first = -1;
+        int mismatches = 0;
+        for (int i = 0; i < a.length(); i++) {
+            if (a.charAt(i) != b.charAt(i)) {
+                if (mismatches++ == 0) {
+                    first = i;
+                }
+            }
+        }
+        if (mismatches <= 1) {
+            return true;
+        }
+        return mismatches == 2 && first + 1 < a.length()
+                && a.charAt(first) == b.charAt(first + 1) && a.charAt(first + 1) == b.charAt(first);
+    }
+
+    static String normalize(String text) {
+        return DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+    }
+
+    static List<String> tokenize(String text) {
+        return Arrays.stream(SEPARATORS.split(normalize(text)))
+                .filter(term -> !term.isEmpty())
+                .distinct()
+                .collect(Collectors.toList());
+    }
+}
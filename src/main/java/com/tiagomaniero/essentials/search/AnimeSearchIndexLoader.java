@@ -0,0 +1,25 @@
+package com.tiagomaniero.essentials.search;
+
+import com.tiagomaniero.essentials.service.AnimeService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+@Component
+@Log4j2
+@RequiredArgsConstructor
+public class AnimeSearchIndexLoader {
+
+    private final AnimeService animeService;
+    private final AnimeSearchIndex animeSearchIndex;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.nanoTime();
+        animeService.streamAll(animeSearchIndex::indexIfAbsent);
+        animeSearchIndex.markReady();
+        log.info("Anime search index loaded in {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,15 @@
+package com.tiagomaniero.essentials.security;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * Authentication set by {@link TokenAuthenticationFilter} for a verified bearer token, so endpoints that must see
+ * the user's credentials (such as issuing a new token) can tell it apart from a Basic login.
+ */
+public class BearerTokenAuthentication extends UsernamePasswordAuthenticationToken {
+
+    public BearerTokenAuthentication(UserDetails principal) {
+        super(principal, null, principal.getAuthorities());
+    }
+}
@@ -0,0 +1,59 @@
+package com.tiagomaniero.essentials.security;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Authenticates requests carrying "Authorization: Bearer token" from the token alone.
+ * Requests without a bearer token continue down the chain to the Basic authentication filter.
+ */
+@RequiredArgsConstructor
+public class TokenAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER = "Bearer ";
+
+    private final TokenService tokenService;
+
+    public static boolean hasBearerToken(HttpServletRequest request) {
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        return authorization != null && authorization.regionMatches(true, 0, BEARER, 0, BEARER.length());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!hasBearerToken(request)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        Optional<TokenService.Claims> claims = tokenService.verify(
+                request.getHeader(HttpHeaders.AUTHORIZATION).substring(BEARER.length()).trim());
+        if (claims.isEmpty()) {
+            SecurityContextHolder.clearContext();
+            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\"");
+            response.sendError(HttpStatus.UNAUTHORIZED.value());
+            return;
+        }
+
+        UserDetails principal = User.withUsername(claims.get().getSub())
+                .password("")
+                .authorities(AuthorityUtils.createAuthorityList(claims.get().getRoles().toArray(String[]::new)))
+                .build();
+        SecurityContextHolder.getContext().setAuthentication(new BearerTokenAuthentication(principal));
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,126 @@
+package com.tiagomaniero.essentials.security;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tiagomaniero.essentials.config.AnimeProperties;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Issues and verifies self-contained HS256 JWTs, so a request carrying one is authenticated without a
+ * session, a database lookup or a password hash. Every node must share anime.security.token-secret.
+ */
+@Component
+@Log4j2
+public class TokenService {
+
+    private static final String HMAC = "HmacSHA256";
+    private static final String HEADER = base64("{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+
+    private final ObjectMapper objectMapper;
+    private final SecretKeySpec key;
+    private final Duration ttl;
+
+    public TokenService(AnimeProperties animeProperties, ObjectMapper objectMapper) {
+        AnimeProperties.Security properties = animeProperties.getSecurity();
+        this.objectMapper = objectMapper;
+        this.ttl = properties.getTokenTtl();
+        this.key = new SecretKeySpec(secret(properties.getTokenSecret()), HMAC);
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public String issue(String username, Collection<? extends GrantedAuthority> authorities) {
+        long now = Instant.now().getEpochSecond();
+        Claims claims = new Claims(username, List.copyOf(AuthorityUtils.authorityListToSet(authorities)),
+                now, now + ttl.getSeconds());
+        try {
+            String content = HEADER + "." + base64(objectMapper.writeValueAsBytes(claims));
+            return content + "." + base64(sign(content));
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write token claims", e);
+        }
+    }
+
+    /**
+     * @return the claims of a well formed, correctly signed and unexpired token, empty otherwise
+     */
+    public Optional<Claims> verify(String token) {
+        int payloadStart = token.indexOf('.');
+        int signatureStart = token.lastIndexOf('.');
+        if (payloadStart < 0 || payloadStart == signatureStart) {
+            return Optional.empty();
+        }
+        String content = token.substring(0, signatureStart);
+        try {
+            byte[] signature = Base64.getUrlDecoder().decode(token.substring(signatureStart + 1));
+            if (!content.startsWith(HEADER + ".") || !MessageDigest.isEqual(sign(content), signature)) {
+                return Optional.empty();
+            }
+            Claims claims = objectMapper.readValue(
+                    Base64.getUrlDecoder().decode(token.substring(payloadStart + 1, signatureStart)), Claims.class);
+            if (claims.getExp() <= Instant.now().getEpochSecond()) {
+                return Optional.empty();
+            }
+            return Optional.of(claims);
+        } catch (IllegalArgumentException | IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    private byte[] sign(String content) {
+        try {
+            Mac mac = Mac.getInstance(HMAC);
+            mac.init(key);
+            return mac.doFinal(content.getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    private static byte[] secret(String configured) {
+        if (configured != null && !configured.isBlank()) {
+            return Base64.getDecoder().decode(configured);
+        }
+        log.warn("anime.security.token-secret is not set, tokens are signed with a random key and only valid on this node");
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        return secret;
+    }
+
+    private static String base64(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Claims {
+        private String sub;
+        private List<String> roles;
+        private long iat;
+        private long exp;
+    }
+}
@@ -0,0 +1,105 @@
+package com.tiagomaniero.essentials.service;
+
+import com.tiagomaniero.essentials.config.AnimeProperties;
+import com.tiagomaniero.essentials.domain.Anime;
+import com.tiagomaniero.essentials.event.AnimeChangedEvent;
+import com.tiagomaniero.essentials.exception.BadRequestException;
+import com.tiagomaniero.essentials.mapper.AnimeMapper;
+import com.tiagomaniero.essentials.repository.AnimeBatchRepository;
+import com.tiagomaniero.essentials.requests.AnimePostRequestBody;
+import com.tiagomaniero.essentials.wrapper.AnimeBatchItemResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Validates every item up front, then inserts the valid ones in chunks of anime.batch.size,
+ * each chunk in its own transaction so a failing chunk does not roll back the others.
+ */
+@Service
+@Log4j2
+@RequiredArgsConstructor
+public class AnimeBatchService {
+
+    private final AnimeBatchRepository animeBatchRepository;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final AnimeProperties animeProperties;
+
+    public List<AnimeBatchItemResult> saveAll(List<AnimePostRequestBody> animePostRequestBodies) {
+        AnimeProperties.Batch properties = animeProperties.getBatch();
+        if (animePostRequestBodies.size() > properties.getMaxItems()) {
+            throw new BadRequestException("A batch accepts at most " + properties.getMaxItems() + " animes");
+        }
+
+        AnimeBatchItemResult[] results = new AnimeBatchItemResult[animePostRequestBodies.size()];
+        List<Integer> valid = new ArrayList<>(animePostRequestBodies.size());
+        for (int i = 0; i < animePostRequestBodies.size(); i++) {
+            String error = validate(animePostRequestBodies.get(i));
+            if (error == null) {
+                valid.add(i);
+            } else {
+                results[i] = result(i, AnimeBatchItemResult.Status.INVALID, null, error);
+            }
+        }
+
+        for (int from = 0; from < valid.size(); from += properties.getSize()) {
+            List<Integer> chunk = valid.subList(from, Math.min(from + properties.getSize(), valid.size()));
+            List<Anime> animes = chunk.stream()
+                    .map(i -> AnimeMapper.INSTANCE.toAnime(animePostRequestBodies.get(i)))
+                    .collect(Collectors.toList());
+            try {
+                transactionTemplate.executeWithoutResult(status -> insert(animes));
+                for (int i = 0; i < chunk.size(); i++) {
+                    results[chunk.get(i)] = result(chunk.get(i), AnimeBatchItemResult.Status.CREATED, animes.get(i).getId(), null);
+                }
+            } catch (DataAccessException e) {
+                log.warn("Anime batch chunk of {} items failed", chunk.size(), e);
+                chunk.forEach(i -> results[i] = result(i, AnimeBatchItemResult.Status.FAILED, null,
+                        e.getMostSpecificCause().getMessage()));
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private void insert(List<Anime> animes) {
+        List<Long> ids = animeBatchRepository.insertAll(animes);
+        for (int i = 0; i < animes.size(); i++) {
+            animes.get(i).setId(ids.get(i));
+            animes.get(i).setVersion(0L);
+            applicationEventPublisher.publishEvent(AnimeChangedEvent.created(animes.get(i)));
+        }
+    }
+
+    private String validate(AnimePostRequestBody animePostRequestBody) {
+        if (animePostRequestBody == null) {
+            return "The anime cannot be null";
+        }
+        Set<ConstraintViolation<AnimePostRequestBody>> violations = validator.validate(animePostRequestBody);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream().map(ConstraintViolation::getMessage).collect(Collectors.joining(","));
+    }
+
+    private static AnimeBatchItemResult result(int index, AnimeBatchItemResult.Status status, Long id, String error) {
+        return AnimeBatchItemResult.builder()
+                .index(index)
+                .status(status)
+                .id(id)
+                .error(error)
+                .build();
+    }
+}
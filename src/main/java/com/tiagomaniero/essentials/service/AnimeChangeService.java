@@ -0,0 +1,107 @@
+package com.tiagomaniero.essentials.service;
+
+import com.tiagomaniero.essentials.config.AnimeProperties;
+import com.tiagomaniero.essentials.datasource.PrimaryReads;
+import com.tiagomaniero.essentials.domain.AnimeChange;
+import com.tiagomaniero.essentials.event.AnimeChangedEvent;
+import com.tiagomaniero.essentials.repository.AnimeChangeRepository;
+import com.tiagomaniero.essentials.wrapper.AnimeChangePage;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class AnimeChangeService {
+    private static final String SERVICE_METRIC = "anime.service";
+
+    private final AnimeChangeRepository animeChangeRepository;
+    private final AnimeProperties animeProperties;
+
+    /**
+     * Changes after since in seq order. Stops before a missing seq younger than gap-timeout: the transaction
+     * holding it may not have committed yet and a reader that moved past it would never see that change.
+     * Always reads the primary: the gap check compares changedAt with the local clock, and a replica lagging more
+     * than gap-timeout would show a seq as settled before it applied the one below it.
+     */
+    @Timed(SERVICE_METRIC)
+    @Transactional(readOnly = true)
+    public AnimeChangePage changesSince(long since, int limit) {
+        AnimeProperties.Changes properties = animeProperties.getChanges();
+        long from = Math.max(0, since);
+        int pageSize = Math.max(1, Math.min(limit, properties.getMaxPageSize()));
+        List<AnimeChange> changes = PrimaryReads.run(() -> animeChangeRepository.findBySeqGreaterThanOrderBySeqAsc(
+                from, PageRequest.of(0, pageSize + 1)));
+
+        Instant settled = Instant.now().minus(properties.getGapTimeout());
+        List<AnimeChange> content = new ArrayList<>(Math.min(changes.size(), pageSize));
+        long next = from;
+        boolean gap = false;
+        for (AnimeChange change : changes) {
+            if (content.size() == pageSize) {
+                break;
+            }
+            if (change.getSeq() != next + 1 && change.getChangedAt().isAfter(settled)) {
+                gap = true;
+                break;
+            }
+            content.add(change);
+            next = change.getSeq();
+        }
+
+        return AnimeChangePage.builder()
+                .changes(content)
+                .numberOfElements(content.size())
+                .next(next)
+                .last(gap || changes.size() <= pageSize)
+                .build();
+    }
+
+    /**
+     * Highest seq with no unsettled gap below it, where a reader that wants only new changes starts. The plain
+     * max(seq) may already be past a lower seq whose transaction has not committed yet. Reads the primary, like
+     * changesSince.
+     */
+    @Transactional(readOnly = true)
+    public long settledHead() {
+        AnimeProperties.Changes properties = animeProperties.getChanges();
+        // abaixo da última entrada mais velha que gap-timeout nenhum gap ainda pode ser preenchido
+        long position = PrimaryReads.run(() ->
+                animeChangeRepository.findHeadBefore(Instant.now().minus(properties.getGapTimeout())));
+        AnimeChangePage page;
+        do {
+            page = changesSince(position, properties.getMaxPageSize());
+            position = page.getNext();
+        } while (!page.isLast() && page.getNumberOfElements() > 0);
+        return position;
+    }
+
+    /**
+     * Drops one chunk of entries older than the retention that a newer entry of the same anime supersedes,
+     * replaying the remaining log still ends in the same state.
+     *
+     * @return entries removed, 0 once nothing is left to compact
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public int compactSuperseded() {
+        AnimeProperties.Changes properties = animeProperties.getChanges();
+        List<Long> superseded = animeChangeRepository.findSupersededBefore(
+                Instant.now().minus(properties.getRetention()), PageRequest.of(0, properties.getCompactionChunkSize()));
+        if (!superseded.isEmpty()) {
+            animeChangeRepository.deleteAllByIdInBatch(superseded);
+        }
+        return superseded.size();
+    }
+
+    @Transactional(rollbackFor = Exception.class)
+    public int purgeTombstones() {
+        return animeChangeRepository.deleteByTypeAndChangedAtBefore(AnimeChangedEvent.Type.DELETED,
+                Instant.now().minus(animeProperties.getChanges().getTombstoneRetention()));
+    }
+}
@@ -1,56 +1,189 @@
 package com.tiagomaniero.essentials.service;
 
+import com.tiagomaniero.essentials.cache.AnimeCache;
+import com.tiagomaniero.essentials.datasource.PrimaryReads;
 import com.tiagomaniero.essentials.domain.Anime;
+import com.tiagomaniero.essentials.event.AnimeChangedEvent;
 import com.tiagomaniero.essentials.exception.BadRequestException;
+import com.tiagomaniero.essentials.exception.PreconditionFailedException;
 import com.tiagomaniero.essentials.mapper.AnimeMapper;
 import com.tiagomaniero.essentials.repository.AnimeRepository;
+import com.tiagomaniero.essentials.requests.AnimePatchRequestBody;
 import com.tiagomaniero.essentials.requests.AnimePostRequestBody;
 import com.tiagomaniero.essentials.requests.AnimePutRequestBody;
+import com.tiagomaniero.essentials.search.AnimeSearchIndex;
+import com.tiagomaniero.essentials.util.CursorUtil;
+import com.tiagomaniero.essentials.wrapper.CursorPage;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import javax.transaction.Transactional;
+import javax.persistence.EntityManager;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class AnimeService {
+    private static final int MAX_CURSOR_PAGE_SIZE = 2000;
+    private static final String SERVICE_METRIC = "anime.service";
 
     private final AnimeRepository animeRepository;
+    private final CursorUtil cursorUtil;
+    private final EntityManager entityManager;
+    private final AnimeCache animeCache;
+    private final AnimeSearchIndex animeSearchIndex;
+    private final ApplicationEventPublisher applicationEventPublisher;
 
+    @Timed(SERVICE_METRIC)
+    @Transactional(readOnly = true)
     public Page<Anime> listAll(Pageable pageable){
         return animeRepository.findAll(pageable);
     }
 
+    @Timed(SERVICE_METRIC)
+    @Transactional(readOnly = true)
+    public CursorPage<Anime> listAfter(String after, int size, boolean withCount){
+        int pageSize = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+        // one extra row tells us whether there is a next page without running a count
+        List<Anime> animes = animeRepository.findByIdGreaterThanOrderByIdAsc(
+                cursorUtil.decode(after), PageRequest.of(0, pageSize + 1));
+
+        boolean last = animes.size() <= pageSize;
+        List<Anime> content = last ? animes : animes.subList(0, pageSize);
+
+        return CursorPage.<Anime>builder()
+                .content(content)
+                .size(pageSize)
+                .numberOfElements(content.size())
+                .last(last)
+                .nextCursor(last ? null : cursorUtil.encode(content.get(content.size() - 1).getId()))
+                .totalElements(withCount ? animeRepository.count() : null)
+                .build();
+    }
+
+    @Timed(SERVICE_METRIC)
+    @Transactional(readOnly = true)
     public List<Anime> listAllNonPageable() {
         return animeRepository.findAll();
     }
 
+    /**
+     * Walks the whole table through a forward-only cursor, detaching every entity once it has been
+     * handed to the consumer so the persistence context does not grow with the table.
+     */
+    @Timed(SERVICE_METRIC)
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<Anime> consumer) {
+        try (Stream<Anime> animes = animeRepository.streamAll()) {
+            animes.forEach(anime -> {
+                consumer.accept(anime);
+                entityManager.detach(anime);
+            });
+        }
+    }
+
+    @Timed(SERVICE_METRIC)
+    @Transactional(readOnly = true)
     public List<Anime> findByName(String name){
         return animeRepository.findByName(name);
     }
 
+    @Timed(SERVICE_METRIC)
+    @Transactional(readOnly = true)
+    public Page<Anime> search(String name, Pageable pageable){
+        if (!animeSearchIndex.isReady()) {
+            return animeRepository.findByNameStartingWithIgnoreCase(name, pageable);
+        }
+        return animeSearchIndex.search(name, pageable);
+    }
+
+    @Timed(SERVICE_METRIC)
+    @Transactional(readOnly = true)
     public Anime findByIdorThrowBadRequest(Long id){
-        return animeRepository.findById(id)
+        // o cache guarda o resultado por minutos, uma réplica atrasada ficaria lá bem depois da stickiness
+        return animeCache.get(id, key -> PrimaryReads.run(() -> animeRepository.findById(key)))
                 .orElseThrow(() -> new BadRequestException("Anime ID not found"));
     }
 
-    @Transactional(rollbackOn = Exception.class)
+    @Timed(SERVICE_METRIC)
+    @Transactional(rollbackFor = Exception.class)
     public Anime save(AnimePostRequestBody animePostRequestBody) {
-        return animeRepository.save(AnimeMapper.INSTANCE.toAnime(animePostRequestBody));
+        Anime savedAnime = animeRepository.save(AnimeMapper.INSTANCE.toAnime(animePostRequestBody));
+        applicationEventPublisher.publishEvent(AnimeChangedEvent.created(savedAnime));
+        return savedAnime;
     }
 
+    @Timed(SERVICE_METRIC)
+    @Transactional(rollbackFor = Exception.class)
     public void deleteById(Long id) {
-        animeRepository.delete(findByIdorThrowBadRequest(id));
+        if (animeRepository.deleteDirectlyById(id) == 0) {
+            throw new BadRequestException("Anime ID not found");
+        }
+        applicationEventPublisher.publishEvent(AnimeChangedEvent.deleted(id));
     }
 
-    public void replace(AnimePutRequestBody animePutRequestBody) {
-        Anime savedAnime = findByIdorThrowBadRequest(animePutRequestBody.getId());
-        Anime anime = AnimeMapper.INSTANCE.toAnime(animePutRequestBody);
-        anime.setId(savedAnime.getId());
-        animeRepository.save(anime);
+    /**
+     * @param expectedVersion version the client last read (from If-Match), null to overwrite unconditionally
+     */
+    @Timed(SERVICE_METRIC)
+    @Transactional(rollbackFor = Exception.class)
+    public void replace(AnimePutRequestBody animePutRequestBody, Long expectedVersion) {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("name", animePutRequestBody.getName());
+        update(animePutRequestBody.getId(), expectedVersion, attributes);
+    }
+
+    /**
+     * Updates only the fields set in the body.
+     *
+     * @param expectedVersion version the client last read (from If-Match), null to update unconditionally
+     */
+    @Timed(SERVICE_METRIC)
+    @Transactional(rollbackFor = Exception.class)
+    public void patch(Long id, AnimePatchRequestBody animePatchRequestBody, Long expectedVersion) {
+        Map<String, Object> attributes = new HashMap<>();
+        if (animePatchRequestBody.getName() != null) {
+            attributes.put("name", animePatchRequestBody.getName());
+        }
+        if (attributes.isEmpty()) {
+            Anime savedAnime = findInDatabaseOrThrowBadRequest(id);
+            if (expectedVersion != null && !expectedVersion.equals(savedAnime.getVersion())) {
+                throw new PreconditionFailedException("Anime was modified since version " + expectedVersion);
+            }
+            return;
+        }
+        update(id, expectedVersion, attributes);
+    }
+
+    // one UPDATE, the affected-row count tells a missing id (or a stale version) apart from success
+    private void update(Long id, Long expectedVersion, Map<String, Object> attributes) {
+        Long version = animeRepository.updateAttributes(id, expectedVersion, attributes).orElseThrow(() -> {
+            if (expectedVersion != null && animeRepository.existsById(id)) {
+                return new PreconditionFailedException("Anime was modified since version " + expectedVersion);
+            }
+            return new BadRequestException("Anime ID not found");
+        });
+        // name is the only mutable attribute, so the event carries the full new state
+        applicationEventPublisher.publishEvent(AnimeChangedEvent.updated(Anime.builder()
+                .id(id)
+                .name((String) attributes.get("name"))
+                .version(version)
+                .build()));
+    }
+
+    // writes check the row itself, a cached copy may be stale when another node changed it
+    private Anime findInDatabaseOrThrowBadRequest(Long id){
+        return animeRepository.findById(id)
+                .orElseThrow(() -> new BadRequestException("Anime ID not found"));
     }
 
 }
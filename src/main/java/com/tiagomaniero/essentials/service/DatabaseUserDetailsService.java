@@ -1,7 +1,13 @@
 package com.tiagomaniero.essentials.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tiagomaniero.essentials.config.AnimeProperties;
 import com.tiagomaniero.essentials.repository.DatabaseUserRepository;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -9,15 +15,56 @@ import org.springframework.stereotype.Service;
 
 import java.util.Optional;
 
+/**
+ * Users are cached as immutable snapshots with their authorities already parsed. Every call returns a copy
+ * because the authentication manager erases the credentials of the principal it receives.
+ */
 @Service
-@RequiredArgsConstructor
 public class DatabaseUserDetailsService implements UserDetailsService {
 
     private final DatabaseUserRepository repository;
+    private final Cache<String, UserDetails> users;
+    private final Timer loadTimer;
+
+    public DatabaseUserDetailsService(DatabaseUserRepository repository,
+                                      AnimeProperties animeProperties,
+                                      MeterRegistry meterRegistry) {
+        AnimeProperties.Security properties = animeProperties.getSecurity();
+        this.repository = repository;
+        this.users = Caffeine.newBuilder()
+                .maximumSize(properties.getUserCacheSize())
+                .expireAfterWrite(properties.getUserCacheTtl())
+                .recordStats()
+                .build();
+        this.loadTimer = Timer.builder("anime.auth.user.load")
+                .description("Time spent loading a user to authenticate a request")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "users");
+    }
 
     @Override
     public UserDetails loadUserByUsername(String username) {
+        UserDetails user = loadTimer.record(() -> users.get(username, this::findUser));
+        if (user == null) {
+            throw new UsernameNotFoundException("User not found");
+        }
+        return User.withUserDetails(user).build();
+    }
+
+    public void evict(String username) {
+        users.invalidate(username);
+    }
+
+    public void evictAll() {
+        users.invalidateAll();
+    }
+
+    // returning null keeps unknown usernames out of the cache
+    private UserDetails findUser(String username) {
         return Optional.ofNullable(repository.findByUsername(username))
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+                .map(databaseUser -> User.withUserDetails(databaseUser).build())
+                .orElse(null);
     }
 }
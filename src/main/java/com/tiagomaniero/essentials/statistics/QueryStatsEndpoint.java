@@ -0,0 +1,55 @@
+package com.tiagomaniero.essentials.statistics;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * /actuator/querystats: SQL work per endpoint since the last reset plus Hibernate's global counters.
+ * DELETE clears both. Restricted to ADMIN in SecurityConfig.
+ */
+@Component
+@Endpoint(id = "querystats")
+@RequiredArgsConstructor
+public class QueryStatsEndpoint {
+
+    private final QueryStatsRegistry queryStatsRegistry;
+    private final EntityManagerFactory entityManagerFactory;
+
+    @ReadOperation
+    public Map<String, Object> queryStats() {
+        Statistics statistics = statistics();
+        Map<String, Object> hibernate = new LinkedHashMap<>();
+        hibernate.put("statisticsEnabled", statistics.isStatisticsEnabled());
+        hibernate.put("prepareStatementCount", statistics.getPrepareStatementCount());
+        hibernate.put("queryExecutionCount", statistics.getQueryExecutionCount());
+        hibernate.put("queryExecutionMaxTime", statistics.getQueryExecutionMaxTime());
+        hibernate.put("queryExecutionMaxTimeQueryString", statistics.getQueryExecutionMaxTimeQueryString());
+        hibernate.put("entityLoadCount", statistics.getEntityLoadCount());
+        hibernate.put("entityFetchCount", statistics.getEntityFetchCount());
+        hibernate.put("transactionCount", statistics.getTransactionCount());
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("endpoints", queryStatsRegistry.snapshot());
+        body.put("hibernate", hibernate);
+        return body;
+    }
+
+    @DeleteOperation
+    public void reset() {
+        queryStatsRegistry.reset();
+        statistics().clear();
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
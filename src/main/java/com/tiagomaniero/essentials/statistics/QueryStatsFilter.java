@@ -0,0 +1,62 @@
+package com.tiagomaniero.essentials.statistics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Binds a RequestQueryStats to each request and hands it to QueryStatsRegistry once the response is written.
+ * Async requests are recorded at the end of their async dispatch, so the numbers are in before the client
+ * sees the response.
+ */
+@Component
+@RequiredArgsConstructor
+public class QueryStatsFilter extends OncePerRequestFilter {
+
+    private static final String STATS_ATTRIBUTE = QueryStatsFilter.class.getName() + ".stats";
+    private static final String START_ATTRIBUTE = QueryStatsFilter.class.getName() + ".start";
+
+    private final QueryStatsRegistry queryStatsRegistry;
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestQueryStats stats = (RequestQueryStats) request.getAttribute(STATS_ATTRIBUTE);
+        if (stats == null) {
+            stats = new RequestQueryStats();
+            request.setAttribute(STATS_ATTRIBUTE, stats);
+            request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        }
+
+        RequestQueryStats previous = RequestQueryStats.bind(stats);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestQueryStats.restore(previous);
+            if (!request.isAsyncStarted()) {
+                record(request, stats);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, RequestQueryStats stats) {
+        Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (uri == null) {
+            return;
+        }
+        long durationMs = (System.nanoTime() - (long) request.getAttribute(START_ATTRIBUTE)) / 1_000_000;
+        queryStatsRegistry.record(request.getMethod(), uri.toString(), stats, durationMs);
+    }
+}
@@ -0,0 +1,106 @@
+package com.tiagomaniero.essentials.statistics;
+
+import com.tiagomaniero.essentials.config.AnimeProperties;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aggregates RequestQueryStats per endpoint (method and URI pattern), publishes them as anime.http.sql.* meters
+ * and logs requests over the anime.sql thresholds.
+ */
+@Log4j2
+@Component
+@RequiredArgsConstructor
+public class QueryStatsRegistry {
+
+    private final AnimeProperties animeProperties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, EndpointQueryStats> endpoints = new ConcurrentHashMap<>();
+
+    public void record(String method, String uri, RequestQueryStats stats, long durationMs) {
+        String endpoint = method + " " + uri;
+        endpoints.computeIfAbsent(endpoint, key -> new EndpointQueryStats()).add(stats, durationMs);
+
+        DistributionSummary.builder("anime.http.sql.statements")
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(stats.getStatements());
+        DistributionSummary.builder("anime.http.sql.entity.loads")
+                .tag("method", method)
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(stats.getEntityLoads());
+
+        AnimeProperties.Sql thresholds = animeProperties.getSql();
+        if (stats.getStatements() > thresholds.getStatementThreshold()
+                || durationMs > thresholds.getSlowRequestThreshold().toMillis()) {
+            log.warn("{} issued {} statements ({} queries in {} ms, {} entity loads) and took {} ms",
+                    endpoint, stats.getStatements(), stats.getQueries(), stats.getQueryTimeMs(),
+                    stats.getEntityLoads(), durationMs);
+        }
+    }
+
+    public Map<String, EndpointQueryStats> snapshot() {
+        return new TreeMap<>(endpoints);
+    }
+
+    public EndpointQueryStats get(String method, String uri) {
+        return endpoints.get(method + " " + uri);
+    }
+
+    public void reset() {
+        endpoints.clear();
+    }
+
+    public static class EndpointQueryStats {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder statements = new LongAdder();
+        private final LongAccumulator maxStatements = new LongAccumulator(Math::max, 0);
+        private final LongAdder entityLoads = new LongAdder();
+        private final LongAdder queryTimeMs = new LongAdder();
+        private final LongAccumulator maxDurationMs = new LongAccumulator(Math::max, 0);
+
+        void add(RequestQueryStats stats, long durationMs) {
+            requests.increment();
+            statements.add(stats.getStatements());
+            maxStatements.accumulate(stats.getStatements());
+            entityLoads.add(stats.getEntityLoads());
+            queryTimeMs.add(stats.getQueryTimeMs());
+            maxDurationMs.accumulate(durationMs);
+        }
+
+        public long getRequests() {
+            return requests.sum();
+        }
+
+        public long getStatements() {
+            return statements.sum();
+        }
+
+        public long getMaxStatements() {
+            return maxStatements.get();
+        }
+
+        public long getEntityLoads() {
+            return entityLoads.sum();
+        }
+
+        public long getQueryTimeMs() {
+            return queryTimeMs.sum();
+        }
+
+        public long getMaxDurationMs() {
+            return maxDurationMs.get();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.tiagomaniero.essentials.statistics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * SQL work done on behalf of one HTTP request. It is bound to the thread serving the request and carried over
+ * to the AnimeDbExecutor thread with propagate, so Hibernate can attribute statements wherever they run.
+ */
+public class RequestQueryStats {
+
+    private static final ThreadLocal<RequestQueryStats> CURRENT = new ThreadLocal<>();
+
+    private final AtomicLong statements = new AtomicLong();
+    private final AtomicLong entityLoads = new AtomicLong();
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong queryTimeMs = new AtomicLong();
+
+    public static RequestQueryStats current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * @return the stats bound before, to be handed back to restore
+     */
+    public static RequestQueryStats bind(RequestQueryStats stats) {
+        RequestQueryStats previous = CURRENT.get();
+        CURRENT.set(stats);
+        return previous;
+    }
+
+    public static void restore(RequestQueryStats previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    public static <T> Supplier<T> propagate(Supplier<T> supplier) {
+        RequestQueryStats stats = current();
+        if (stats == null) {
+            return supplier;
+        }
+        return () -> {
+            RequestQueryStats previous = bind(stats);
+            try {
+                return supplier.get();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    void statementPrepared() {
+        statements.incrementAndGet();
+    }
+
+    void entityLoaded() {
+        entityLoads.incrementAndGet();
+    }
+
+    void queryExecuted(long timeMs) {
+        queries.incrementAndGet();
+        queryTimeMs.addAndGet(timeMs);
+    }
+
+    public long getStatements() {
+        return statements.get();
+    }
+
+    public long getEntityLoads() {
+        return entityLoads.get();
+    }
+
+    public long getQueries() {
+        return queries.get();
+    }
+
+    public long getQueryTimeMs() {
+        return queryTimeMs.get();
+    }
+}
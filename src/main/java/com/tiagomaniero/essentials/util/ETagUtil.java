@@ -0,0 +1,68 @@
+package com.tiagomaniero.essentials.util;
+
+import com.tiagomaniero.essentials.domain.Anime;
+import com.tiagomaniero.essentials.exception.PreconditionFailedException;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * ETags built from row versions, so they can be compared without serializing the body. A single anime gets a strong
+ * ETag because it is also the If-Match token, and If-Match only compares strong tags (its body is under the
+ * compression threshold anyway). Lists get weak ones: the same versions are served as JSON, Smile or CBOR and
+ * gzipped or not (Tomcat never compresses a strong ETag), and If-None-Match compares them weakly.
+ */
+@Component
+public class ETagUtil {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    public String forAnime(Anime anime) {
+        return "\"" + anime.getId() + "-" + anime.getVersion() + "\"";
+    }
+
+    public String forAnimes(Collection<Anime> animes, long totalElements) {
+        long hash = mix(FNV_OFFSET_BASIS, totalElements);
+        for (Anime anime : animes) {
+            hash = mix(hash, anime.getId());
+            hash = mix(hash, anime.getVersion() == null ? -1 : anime.getVersion());
+        }
+        return "W/\"" + Long.toHexString(hash) + "\"";
+    }
+
+    /**
+     * @param id the anime the request changes, a tag copied from another anime never matches
+     * @return the version carried by an If-Match value produced by {@link #forAnime(Anime)},
+     * null for "*" or when no precondition was sent
+     * @throws PreconditionFailedException when the tag is weak, malformed or belongs to another anime
+     */
+    public Long versionOf(Long id, String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String eTag = ifMatch.trim();
+        // If-Match usa comparação forte, uma tag fraca nunca casa
+        if (eTag.length() < 2 || !eTag.startsWith("\"") || !eTag.endsWith("\"")) {
+            throw new PreconditionFailedException("If-Match must be a strong ETag of this anime");
+        }
+        eTag = eTag.substring(1, eTag.length() - 1);
+        int separator = eTag.lastIndexOf('-');
+        try {
+            if (separator <= 0 || !Long.valueOf(eTag.substring(0, separator)).equals(id)) {
+                throw new PreconditionFailedException("If-Match belongs to another anime");
+            }
+            return Long.valueOf(eTag.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            throw new PreconditionFailedException("If-Match must be a strong ETag of this anime");
+        }
+    }
+
+    private static long mix(long hash, long value) {
+        for (int i = 0; i < Long.BYTES; i++) {
+            hash ^= (value >>> (i * 8)) & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+}
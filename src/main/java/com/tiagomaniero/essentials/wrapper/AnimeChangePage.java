@@ -0,0 +1,24 @@
+package com.tiagomaniero.essentials.wrapper;
+
+import com.tiagomaniero.essentials.domain.AnimeChange;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * The client sends back {@code next} as {@code since} to fetch the following changes, last means there is
+ * nothing more to read right now.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AnimeChangePage {
+    private List<AnimeChange> changes;
+    private int numberOfElements;
+    private long next;
+    private boolean last;
+}
@@ -0,0 +1,17 @@
+package com.tiagomaniero.essentials.wrapper;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Journal position of an accepted write-behind save, the anime shows up in /changes once its batch commits.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AnimeWriteTicket {
+    private long ticket;
+}
@@ -0,0 +1,36 @@
+package com.tiagomaniero.essentials.wrapper;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.http.MediaType;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Page held by AnimePageCache together with its encoded bodies, one per media type, so a hit is written
+ * without running Jackson again.
+ */
+public class CachedPage<T> extends PageImpl<T> {
+
+    private final transient Map<MediaType, Encoded> encoded = new ConcurrentHashMap<>();
+
+    public CachedPage(Page<T> page) {
+        super(page.getContent(), page.getPageable(), page.getTotalElements());
+    }
+
+    public Encoded encoded(MediaType mediaType, Function<MediaType, Encoded> encoder) {
+        return encoded.computeIfAbsent(mediaType, encoder);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Encoded {
+        private final byte[] body;
+        /** null when the body is below the compression threshold */
+        private final byte[] gzipped;
+    }
+}
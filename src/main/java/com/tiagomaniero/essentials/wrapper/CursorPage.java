@@ -0,0 +1,27 @@
+package com.tiagomaniero.essentials.wrapper;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Keyset page: the client sends back {@code nextCursor} as {@code after} to fetch the following page.
+ * {@code totalElements} is only filled when the count was explicitly requested.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CursorPage<T> {
+    private List<T> content;
+    private int size;
+    private int numberOfElements;
+    private String nextCursor;
+    private boolean last;
+    private Long totalElements;
+}
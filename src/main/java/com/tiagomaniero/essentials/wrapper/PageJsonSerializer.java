@@ -0,0 +1,37 @@
+package com.tiagomaniero.essentials.wrapper;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import org.springframework.boot.jackson.JsonComponent;
+import org.springframework.data.domain.Page;
+
+import java.io.IOException;
+
+/**
+ * Writes pages as a slim envelope: the content plus the numbers a client pages with. The pageable and sort
+ * objects Spring Data would repeat on every page are left out, PageableResponse reads either shape.
+ */
+@JsonComponent
+public class PageJsonSerializer extends JsonSerializer<Page<?>> {
+
+    @Override
+    public void serialize(Page<?> page, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        gen.writeStartObject();
+        serializers.defaultSerializeField("content", page.getContent(), gen);
+        gen.writeNumberField("number", page.getNumber());
+        gen.writeNumberField("size", page.getSize());
+        gen.writeNumberField("numberOfElements", page.getNumberOfElements());
+        gen.writeNumberField("totalElements", page.getTotalElements());
+        gen.writeNumberField("totalPages", page.getTotalPages());
+        gen.writeBooleanField("first", page.isFirst());
+        gen.writeBooleanField("last", page.isLast());
+        gen.writeEndObject();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Class<Page<?>> handledType() {
+        return (Class<Page<?>>) (Class<?>) Page.class;
+    }
+}
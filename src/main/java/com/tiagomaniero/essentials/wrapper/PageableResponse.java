@@ -10,6 +10,10 @@ import org.springframework.data.domain.PageRequest;
 
 import java.util.List;
 
+/**
+ * Reads both the Spring Data page shape and the slim envelope written by {@link PageJsonSerializer}, where the
+ * pageable and sort objects are missing.
+ */
 @Getter
 @Setter
 public class PageableResponse<T> extends PageImpl<T> {
@@ -22,7 +26,7 @@ public class PageableResponse<T> extends PageImpl<T> {
     public PageableResponse(@JsonProperty("content")List<T> content,
                             @JsonProperty("number") int number,
                             @JsonProperty("size") int size,
-                            @JsonProperty("totalElements") int totalElements,
+                            @JsonProperty("totalElements") long totalElements,
                             @JsonProperty("last") boolean last,
                             @JsonProperty("first") boolean first,
                             @JsonProperty("totalPages") int totalPages,
@@ -0,0 +1,320 @@
+package com.tiagomaniero.essentials.writebehind;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tiagomaniero.essentials.config.AnimeProperties;
+import com.tiagomaniero.essentials.domain.Anime;
+import com.tiagomaniero.essentials.domain.WriteBehindCheckpoint;
+import com.tiagomaniero.essentials.event.AnimeChangedEvent;
+import com.tiagomaniero.essentials.exception.WriteBehindPendingException;
+import com.tiagomaniero.essentials.repository.AnimeBatchRepository;
+import com.tiagomaniero.essentials.repository.WriteBehindCheckpointRepository;
+import com.tiagomaniero.essentials.requests.AnimePostRequestBody;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+/**
+ * Optional write-behind mode for saves. A save is appended to the local journal, queued and acknowledged;
+ * one flusher thread inserts the queue in JDBC batches once batch-size writes are waiting or the oldest waited
+ * flush-interval. Each batch stores the last journal ticket it covers in the same transaction, on startup the
+ * journal entries after that ticket are inserted again, so a crash loses nothing and duplicates nothing.
+ */
+@Component
+@Log4j2
+public class AnimeWriteBehind implements SmartLifecycle {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final AnimeProperties.WriteBehind properties;
+    private final AnimeBatchRepository animeBatchRepository;
+    private final WriteBehindCheckpointRepository writeBehindCheckpointRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final ObjectMapper objectMapper;
+
+    private final Queue<Pending> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final Timer flushTimer;
+    private final Timer delayTimer;
+    private final DistributionSummary batchSizeSummary;
+    private final Counter rejected;
+
+    private WriteBehindJournal journal;
+    private Thread flusher;
+    private volatile boolean running;
+    private long lastCommitted;
+
+    public AnimeWriteBehind(AnimeProperties animeProperties, AnimeBatchRepository animeBatchRepository,
+                            WriteBehindCheckpointRepository writeBehindCheckpointRepository,
+                            TransactionTemplate transactionTemplate, ApplicationEventPublisher applicationEventPublisher,
+                            ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.properties = animeProperties.getWriteBehind();
+        this.animeBatchRepository = animeBatchRepository;
+        this.writeBehindCheckpointRepository = writeBehindCheckpointRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.objectMapper = objectMapper;
+        this.flushTimer = Timer.builder("anime.writebehind.flush").register(meterRegistry);
+        this.delayTimer = Timer.builder("anime.writebehind.delay")
+                .description("time from the journal append to the commit of the batch")
+                .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("anime.writebehind.batch.size").register(meterRegistry);
+        this.rejected = Counter.builder("anime.writebehind.rejected").register(meterRegistry);
+        meterRegistry.gauge("anime.writebehind.queue.depth", depth);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Journals the save and queues it. Throws RejectedExecutionException (503) when the queue is full, and
+     * WriteBehindPendingException (202) when the save was queued but the journal could not be synced.
+     */
+    public Accepted submit(AnimePostRequestBody animePostRequestBody) {
+        if (!running) {
+            throw new RejectedExecutionException("Write-behind is not running");
+        }
+        int queued = depth.incrementAndGet();
+        if (queued > properties.getQueueCapacity()) {
+            depth.decrementAndGet();
+            rejected.increment();
+            throw new RejectedExecutionException("Write-behind queue is full (" + properties.getQueueCapacity() + ")");
+        }
+        CompletableFuture<Anime> saved = new CompletableFuture<>();
+        AtomicLong queuedTicket = new AtomicLong();
+        long ticket;
+        try {
+            ticket = journal.append(write(animePostRequestBody), written -> {
+                queue.offer(new Pending(written, animePostRequestBody.getName(), System.nanoTime(), saved));
+                queuedTicket.set(written);
+            });
+        } catch (RuntimeException e) {
+            if (queuedTicket.get() == 0) {
+                depth.decrementAndGet();
+                throw e;
+            }
+            // já está na fila e o flusher vai inserir, só o fsync falhou
+            throw new WriteBehindPendingException("Write-behind save was queued but the journal sync failed",
+                    queuedTicket.get(), e);
+        }
+        //acorda o flusher no primeiro da fila (abre a janela) e quando o lote encheu
+        if (queued == 1 || queued >= properties.getBatchSize()) {
+            LockSupport.unpark(flusher);
+        }
+        return new Accepted(ticket, saved.copy());
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        return properties.isEnabled();
+    }
+
+    @Override
+    public void start() {
+        journal = new WriteBehindJournal(Path.of(properties.getJournalDirectory()));
+        lastCommitted = writeBehindCheckpointRepository.findById(journal.getId())
+                .map(WriteBehindCheckpoint::getLastTicket)
+                .orElse(0L);
+        List<WriteBehindJournal.Record> records = journal.open(lastCommitted);
+        for (WriteBehindJournal.Record record : records) {
+            queue.offer(new Pending(record.getTicket(), read(record.getPayload()).getName(), System.nanoTime(),
+                    new CompletableFuture<>()));
+            depth.incrementAndGet();
+        }
+        if (!records.isEmpty()) {
+            log.warn("Replaying {} write-behind saves from journal {} after ticket {}",
+                    records.size(), journal.getId(), lastCommitted);
+        }
+        running = true;
+        flusher = new Thread(this::flushLoop, "anime-write-behind");
+        flusher.start();
+    }
+
+    /**
+     * Flushes what is queued before returning, writes that cannot be inserted stay in the journal.
+     */
+    @Override
+    public void stop() {
+        running = false;
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join();
+            journal.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void flushLoop() {
+        long batchSize = properties.getBatchSize();
+        long flushInterval = properties.getFlushInterval().toNanos();
+        while (running || !queue.isEmpty()) {
+            Pending oldest = queue.peek();
+            if (running && depth.get() < batchSize) {
+                long wait = oldest == null ? IDLE_PARK_NANOS : oldest.enqueuedAt + flushInterval - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(this, wait);
+                    continue;
+                }
+            }
+            List<Pending> batch = new ArrayList<>(properties.getBatchSize());
+            Pending pending;
+            while (batch.size() < batchSize && (pending = queue.poll()) != null) {
+                batch.add(pending);
+            }
+            if (!batch.isEmpty() && !flushWithRetry(batch)) {
+                failRemaining(batch);
+                return;
+            }
+        }
+    }
+
+    private boolean flushWithRetry(List<Pending> batch) {
+        while (true) {
+            try {
+                flush(batch);
+                return true;
+            } catch (DataIntegrityViolationException e) {
+                if (batch.size() == 1) {
+                    skip(batch.get(0), e);
+                    return true;
+                }
+                // um registro ruim não pode travar a fila: isola item a item
+                for (Pending pending : batch) {
+                    if (!flushWithRetry(List.of(pending))) {
+                        return false;
+                    }
+                }
+                return true;
+            } catch (DataAccessException e) {
+                if (!running) {
+                    return false;
+                }
+                log.warn("Write-behind batch of {} saves failed, retrying in {}", batch.size(),
+                        properties.getRetryBackoff(), e);
+                LockSupport.parkNanos(this, properties.getRetryBackoff().toNanos());
+            }
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        long ticket = batch.get(batch.size() - 1).ticket;
+        List<Anime> animes = batch.stream()
+                .map(pending -> Anime.builder().name(pending.name).build())
+                .collect(Collectors.toList());
+        flushTimer.record(() -> transactionTemplate.executeWithoutResult(status -> {
+            List<Long> ids = animeBatchRepository.insertAll(animes);
+            for (int i = 0; i < animes.size(); i++) {
+                animes.get(i).setId(ids.get(i));
+                animes.get(i).setVersion(0L);
+                applicationEventPublisher.publishEvent(AnimeChangedEvent.created(animes.get(i)));
+            }
+            checkpoint(ticket);
+        }));
+        long now = System.nanoTime();
+        for (int i = 0; i < batch.size(); i++) {
+            delayTimer.record(now - batch.get(i).enqueuedAt, TimeUnit.NANOSECONDS);
+            batch.get(i).saved.complete(animes.get(i));
+        }
+        batchSizeSummary.record(batch.size());
+        committed(batch.size(), ticket);
+    }
+
+    private void skip(Pending pending, DataIntegrityViolationException e) {
+        log.warn("Write-behind save {} rejected by the database, skipping it", pending.ticket, e);
+        transactionTemplate.executeWithoutResult(status -> checkpoint(pending.ticket));
+        pending.saved.completeExceptionally(e);
+        committed(1, pending.ticket);
+    }
+
+    private void checkpoint(long ticket) {
+        writeBehindCheckpointRepository.save(new WriteBehindCheckpoint(journal.getId(), ticket));
+    }
+
+    private void committed(int count, long ticket) {
+        depth.addAndGet(-count);
+        lastCommitted = ticket;
+        journal.truncateIfCommitted(lastCommitted);
+    }
+
+    // continuam no journal e são inseridos no próximo start, por isso não é um erro que o cliente repetiria
+    private void failRemaining(List<Pending> batch) {
+        batch.forEach(this::stillPending);
+        Pending pending;
+        while ((pending = queue.poll()) != null) {
+            stillPending(pending);
+        }
+    }
+
+    private void stillPending(Pending pending) {
+        pending.saved.completeExceptionally(new WriteBehindPendingException(
+                "Write-behind stopped before the save was inserted, it stays in the journal", pending.ticket, null));
+    }
+
+    private String write(AnimePostRequestBody animePostRequestBody) {
+        try {
+            return objectMapper.writeValueAsString(animePostRequestBody);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private AnimePostRequestBody read(byte[] payload) {
+        try {
+            return objectMapper.readValue(new String(payload, StandardCharsets.UTF_8), AnimePostRequestBody.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable write-behind journal record", e);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Accepted {
+        private final long ticket;
+        /** completes once the batch holding the save committed */
+        private final CompletableFuture<Anime> saved;
+    }
+
+    @AllArgsConstructor
+    private static class Pending {
+        private final long ticket;
+        private final String name;
+        private final long enqueuedAt;
+        private final CompletableFuture<Anime> saved;
+    }
+}
@@ -0,0 +1,197 @@
+package com.tiagomaniero.essentials.writebehind;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.LongConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * Local append-only log of accepted writes. A record is {@code length, ticket, payload, crc32}; a torn record
+ * left by a crash fails its checksum and is cut off on open. Appends are group committed: concurrent callers
+ * share one fsync.
+ */
+@Log4j2
+class WriteBehindJournal implements Closeable {
+
+    private static final int HEADER = Integer.BYTES + Long.BYTES;
+
+    @Getter
+    private final String id;
+    private final FileChannel channel;
+    private final Object writeLock = new Object();
+    private final Object syncLock = new Object();
+    private long nextTicket;
+    private long written;
+    private volatile long synced;
+
+    WriteBehindJournal(Path directory) {
+        try {
+            Files.createDirectories(directory);
+            Path idFile = directory.resolve("journal.id");
+            if (!Files.exists(idFile)) {
+                Files.writeString(idFile, UUID.randomUUID().toString());
+            }
+            this.id = Files.readString(idFile).trim();
+            this.channel = FileChannel.open(directory.resolve("journal.log"),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads the intact records, truncates a torn tail and positions the journal after them.
+     *
+     * @param lastCommitted tickets up to this one are already in the database and are not returned
+     */
+    List<Record> open(long lastCommitted) {
+        try {
+            List<Record> records = new ArrayList<>();
+            long position = 0;
+            long lastTicket = lastCommitted;
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            while (true) {
+                header.clear();
+                if (channel.read(header, position) < HEADER) {
+                    break;
+                }
+                header.flip();
+                int length = header.getInt();
+                long ticket = header.getLong();
+                if (length < 0 || position + HEADER + length + Integer.BYTES > channel.size()) {
+                    break;
+                }
+                ByteBuffer body = ByteBuffer.allocate(length + Integer.BYTES);
+                channel.read(body, position + HEADER);
+                body.flip();
+                byte[] payload = new byte[length];
+                body.get(payload);
+                if (body.getInt() != crc(ticket, payload)) {
+                    break;
+                }
+                if (ticket > lastCommitted) {
+                    records.add(new Record(ticket, payload));
+                }
+                lastTicket = Math.max(lastTicket, ticket);
+                position += HEADER + length + Integer.BYTES;
+            }
+            if (position < channel.size()) {
+                log.warn("Write-behind journal {} has a torn tail, truncating {} bytes", id, channel.size() - position);
+                channel.truncate(position);
+            }
+            channel.position(position);
+            written = position;
+            synced = position;
+            nextTicket = lastTicket + 1;
+            return records;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @param onWritten called with the ticket while the journal is still locked, so whatever it enqueues is in
+     *                  ticket order
+     * @return the ticket of the record, durable once this returns
+     */
+    long append(String payload, LongConsumer onWritten) {
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        long ticket;
+        long end;
+        synchronized (writeLock) {
+            ticket = nextTicket++;
+            ByteBuffer record = ByteBuffer.allocate(HEADER + bytes.length + Integer.BYTES)
+                    .putInt(bytes.length)
+                    .putLong(ticket)
+                    .put(bytes)
+                    .putInt(crc(ticket, bytes));
+            record.flip();
+            try {
+                while (record.hasRemaining()) {
+                    channel.write(record);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            written += record.limit();
+            end = written;
+            onWritten.accept(ticket);
+        }
+        sync(end);
+        return ticket;
+    }
+
+    /**
+     * Drops every record once all of them are committed, the tickets keep increasing.
+     */
+    void truncateIfCommitted(long lastCommitted) {
+        synchronized (writeLock) {
+            if (nextTicket - 1 != lastCommitted || written == 0) {
+                return;
+            }
+            try {
+                channel.truncate(0);
+                channel.position(0);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            written = 0;
+            synced = 0;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // quem chegar enquanto outro faz o force espera e normalmente já sai coberto por ele
+    private void sync(long end) {
+        if (synced >= end) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (synced >= end) {
+                return;
+            }
+            long target;
+            synchronized (writeLock) {
+                target = written;
+            }
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            synced = target;
+        }
+    }
+
+    private static int crc(long ticket, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(ByteBuffer.allocate(Long.BYTES).putLong(0, ticket));
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    static class Record {
+        private final long ticket;
+        private final byte[] payload;
+    }
+}
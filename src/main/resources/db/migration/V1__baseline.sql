@@ -0,0 +1,16 @@
+-- Esquema que o ddl-auto: update criava antes das migrações. Bancos que já existem são marcados nesta
+-- versão (spring.flyway.baseline-on-migrate) e só recebem as migrações seguintes.
+create table anime (
+    id bigint not null auto_increment,
+    name varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table anime_users (
+    id bigint not null auto_increment,
+    authorities varchar(255),
+    name varchar(255),
+    password varchar(255),
+    username varchar(255),
+    primary key (id)
+) engine=InnoDB;
@@ -0,0 +1,23 @@
+-- Versão otimista dos animes; linhas que já existem começam em 0.
+alter table anime add column version bigint not null default 0;
+
+create index idx_anime_name on anime (name);
+
+create table anime_change (
+    seq bigint not null auto_increment,
+    anime_id bigint not null,
+    changed_at datetime(6) not null,
+    name varchar(255),
+    type varchar(16) not null,
+    version bigint,
+    primary key (seq)
+) engine=InnoDB;
+
+create index idx_anime_change_anime_id on anime_change (anime_id);
+create index idx_anime_change_changed_at on anime_change (changed_at);
+
+create table write_behind_checkpoint (
+    journal_id varchar(36) not null,
+    last_ticket bigint not null,
+    primary key (journal_id)
+) engine=InnoDB;
@@ -0,0 +1,95 @@
+package com.tiagomaniero.essentials.async;
+
+import com.tiagomaniero.essentials.config.AnimeProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+class AnimeDbExecutorTest {
+    private SimpleMeterRegistry meterRegistry;
+    private AnimeDbExecutor animeDbExecutor;
+
+    @BeforeEach
+    void setUp(){
+        AnimeProperties animeProperties = new AnimeProperties();
+        animeProperties.getAsync().setConcurrency(1);
+        animeProperties.getAsync().setQueueCapacity(1);
+        meterRegistry = new SimpleMeterRegistry();
+        animeDbExecutor = new AnimeDbExecutor(animeProperties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown(){
+        animeDbExecutor.destroy();
+    }
+
+    @Test
+    @DisplayName("Supply completes with the value on a pool thread when successful")
+    void supplyCompletesWithValueOnPoolThreadWhenSuccessful(){
+        String threadName = animeDbExecutor.supply(AnimeDbExecutor.OperationClass.READ, () -> Thread.currentThread().getName()).join();
+
+        Assertions.assertThat(threadName).startsWith("anime-db-");
+        Assertions.assertThat(meterRegistry.find("executor.completed").tag("name", "anime.db").meter()).isNotNull();
+
+    }
+
+    @Test
+    @DisplayName("Supply throws RejectedExecutionException when pool and queue are full")
+    void supplyThrowsRejectedExecutionExceptionWhenPoolAndQueueAreFull() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        animeDbExecutor.run(AnimeDbExecutor.OperationClass.READ, () -> {
+            started.countDown();
+            awaitQuietly(release);
+        });
+        started.await();
+        animeDbExecutor.supply(AnimeDbExecutor.OperationClass.READ, () -> "queued");
+
+        Assertions.assertThatExceptionOfType(RejectedExecutionException.class)
+                .isThrownBy(() -> animeDbExecutor.supply(AnimeDbExecutor.OperationClass.READ, () -> "rejected"));
+
+        release.countDown();
+
+    }
+
+    @Test
+    @DisplayName("Supply rejects an operation whose bulkhead is full while other operations still run")
+    void supplyRejectsOperationWhoseBulkheadIsFullWhileOtherOperationsStillRun() throws InterruptedException {
+        AnimeProperties animeProperties = new AnimeProperties();
+        animeProperties.getBulkhead().setScan(1);
+        AnimeDbExecutor bulkheadExecutor = new AnimeDbExecutor(animeProperties, meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            CompletableFuture<Void> scan = bulkheadExecutor.run(AnimeDbExecutor.OperationClass.SCAN, () -> awaitQuietly(release));
+
+            Assertions.assertThatExceptionOfType(RejectedExecutionException.class)
+                    .isThrownBy(() -> bulkheadExecutor.supply(AnimeDbExecutor.OperationClass.SCAN, () -> "rejected"))
+                    .withMessageContaining("scan");
+            Assertions.assertThat(bulkheadExecutor.supply(AnimeDbExecutor.OperationClass.READ, () -> "read").join()).isEqualTo("read");
+            Assertions.assertThat(meterRegistry.get("anime.bulkhead.rejected").tag("name", "scan").counter().count()).isEqualTo(1);
+
+            release.countDown();
+            scan.join();
+            Assertions.assertThat(meterRegistry.get("anime.bulkhead.in.use").tag("name", "scan").gauge().value()).isZero();
+        } finally {
+            release.countDown();
+            bulkheadExecutor.destroy();
+        }
+
+    }
+
+    private static void awaitQuietly(CountDownLatch latch){
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
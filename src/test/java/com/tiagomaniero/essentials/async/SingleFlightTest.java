@@ -0,0 +1,107 @@
+package com.tiagomaniero.essentials.async;
+
+import com.tiagomaniero.essentials.exception.BadRequestException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class SingleFlightTest {
+    private SimpleMeterRegistry meterRegistry;
+    private SingleFlight<Long, String> singleFlight;
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @BeforeEach
+    void setUp(){
+        meterRegistry = new SimpleMeterRegistry();
+        singleFlight = new SingleFlight<>("findById", Duration.ofMillis(50), meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Execute shares one in-flight call between concurrent callers of the same key")
+    void executeSharesInFlightCallForSameKey(){
+        CompletableFuture<String> call = new CompletableFuture<>();
+
+        CompletableFuture<String> leader = singleFlight.execute(1L, () -> counted(call));
+        CompletableFuture<String> waiter = singleFlight.execute(1L, () -> counted(new CompletableFuture<>()));
+        call.complete("Hellsing");
+
+        Assertions.assertThat(leader.join()).isEqualTo("Hellsing");
+        Assertions.assertThat(waiter.join()).isEqualTo("Hellsing");
+        Assertions.assertThat(calls).hasValue(1);
+        Assertions.assertThat(meterRegistry.get("anime.singleflight.coalesced").counter().count()).isEqualTo(1);
+
+    }
+
+    @Test
+    @DisplayName("Execute starts a new call once the previous one completed")
+    void executeStartsNewCallAfterCompletion(){
+        singleFlight.execute(1L, () -> counted(CompletableFuture.completedFuture("Hellsing"))).join();
+        singleFlight.execute(1L, () -> counted(CompletableFuture.completedFuture("Hellsing"))).join();
+
+        Assertions.assertThat(calls).hasValue(2);
+
+    }
+
+    @Test
+    @DisplayName("Execute fails every caller with the BadRequestException of the shared call")
+    void executeFailsEveryCallerWithSharedBadRequestException(){
+        CompletableFuture<String> call = new CompletableFuture<>();
+        CompletableFuture<String> leader = singleFlight.execute(1L, () -> call);
+        CompletableFuture<String> waiter = singleFlight.execute(1L, () -> call);
+
+        call.completeExceptionally(new BadRequestException("Anime ID not found"));
+
+        Assertions.assertThatThrownBy(leader::join).isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(BadRequestException.class);
+        Assertions.assertThatThrownBy(waiter::join).isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(BadRequestException.class);
+
+    }
+
+    @Test
+    @DisplayName("Execute rejects a waiter after max wait while the shared call keeps running")
+    void executeRejectsWaiterAfterMaxWait(){
+        CompletableFuture<String> call = new CompletableFuture<>();
+        CompletableFuture<String> leader = singleFlight.execute(1L, () -> call);
+
+        CompletableFuture<String> waiter = singleFlight.execute(1L, () -> call);
+
+        Assertions.assertThatThrownBy(waiter::join).hasCauseInstanceOf(RejectedExecutionException.class);
+        Assertions.assertThat(leader).isNotDone();
+        // o timer só conta depois de completar o waiter, que pode acordar antes
+        Counter timeouts = meterRegistry.get("anime.singleflight.timeouts").counter();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (timeouts.count() == 0 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        Assertions.assertThat(timeouts.count()).isEqualTo(1);
+
+    }
+
+    @Test
+    @DisplayName("Forget makes the next caller start its own call")
+    void forgetMakesNextCallerStartItsOwnCall(){
+        singleFlight.execute(1L, () -> counted(new CompletableFuture<>()));
+
+        singleFlight.forget(1L);
+        singleFlight.execute(1L, () -> counted(new CompletableFuture<>()));
+
+        Assertions.assertThat(calls).hasValue(2);
+
+    }
+
+    private CompletableFuture<String> counted(CompletableFuture<String> call){
+        calls.incrementAndGet();
+        return call;
+    }
+}
@@ -0,0 +1,68 @@
+package com.tiagomaniero.essentials.cache;
+
+import com.tiagomaniero.essentials.config.AnimeProperties;
+import com.tiagomaniero.essentials.domain.Anime;
+import com.tiagomaniero.essentials.event.AnimeChangedEvent;
+import com.tiagomaniero.essentials.util.AnimeCreator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class AnimeCacheTest {
+
+    private MeterRegistry meterRegistry;
+    private AnimeCache animeCache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp(){
+        meterRegistry = new SimpleMeterRegistry();
+        animeCache = new AnimeCache(new AnimeProperties(), meterRegistry);
+        loads = new AtomicInteger();
+    }
+
+    private Optional<Anime> load(Long id){
+        loads.incrementAndGet();
+        return Optional.of(AnimeCreator.createValidAnime());
+    }
+
+    @Test
+    @DisplayName("Get loads an anime once and serves it from the cache afterwards")
+    void getLoadsAnimeOnceWhenSuccessful(){
+        animeCache.get(1L, this::load);
+        Optional<Anime> anime = animeCache.get(1L, this::load);
+
+        Assertions.assertThat(anime).contains(AnimeCreator.createValidAnime());
+        Assertions.assertThat(loads).hasValue(1);
+        Assertions.assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count())
+                .isEqualTo(1);
+
+    }
+
+    @Test
+    @DisplayName("Anime changed event evicts the cached anime")
+    void animeChangedEventEvictsCachedAnime(){
+        animeCache.get(1L, this::load);
+        animeCache.onAnimeChanged(AnimeChangedEvent.deleted(1L));
+        animeCache.get(1L, this::load);
+
+        Assertions.assertThat(loads).hasValue(2);
+
+    }
+
+    @Test
+    @DisplayName("Anime created event evicts a cached not found id")
+    void animeCreatedEventEvictsCachedNotFoundId(){
+        animeCache.get(1L, id -> Optional.empty());
+        animeCache.onAnimeChanged(AnimeChangedEvent.created(AnimeCreator.createValidAnime()));
+
+        Assertions.assertThat(animeCache.get(1L, this::load)).isPresent();
+
+    }
+}
@@ -0,0 +1,95 @@
+package com.tiagomaniero.essentials.cache;
+
+import com.tiagomaniero.essentials.config.AnimeProperties;
+import com.tiagomaniero.essentials.domain.Anime;
+import com.tiagomaniero.essentials.event.AnimeChangedEvent;
+import com.tiagomaniero.essentials.util.AnimeCreator;
+import com.tiagomaniero.essentials.wrapper.CachedPage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class AnimePageCacheTest {
+
+    private AnimePageCache animePageCache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp(){
+        animePageCache = new AnimePageCache(new AnimeProperties(), new SimpleMeterRegistry());
+        loads = new AtomicInteger();
+    }
+
+    private CompletableFuture<Page<Anime>> load(){
+        loads.incrementAndGet();
+        return CompletableFuture.completedFuture(new PageImpl<>(List.of(AnimeCreator.createValidAnime())));
+    }
+
+    @Test
+    @DisplayName("Get loads a page once per page, size and sort and serves it from the cache afterwards")
+    void getLoadsPageOncePerPageable(){
+        animePageCache.get(PageRequest.of(0, 20), this::load).join();
+        Page<Anime> page = animePageCache.get(PageRequest.of(0, 20), this::load).join();
+        animePageCache.get(PageRequest.of(0, 20, Sort.by("name")), this::load).join();
+
+        Assertions.assertThat(page).isInstanceOf(CachedPage.class);
+        Assertions.assertThat(page.getContent()).containsExactly(AnimeCreator.createValidAnime());
+        Assertions.assertThat(loads).hasValue(2);
+
+    }
+
+    @Test
+    @DisplayName("Anime changed event empties the cache including the fallback page")
+    void animeChangedEventEmptiesCache(){
+        animePageCache.get(PageRequest.of(0, 5), this::load).join();
+        animePageCache.get(PageRequest.of(0, 20), this::load).join();
+
+        animePageCache.onAnimeChanged(AnimeChangedEvent.deleted(1L));
+        animePageCache.get(PageRequest.of(0, 5), this::load).join();
+        animePageCache.get(PageRequest.of(0, 20), this::load).join();
+
+        Assertions.assertThat(loads).hasValue(4);
+
+    }
+
+    @Test
+    @DisplayName("A page loaded while a write happened is returned but not kept")
+    void pageLoadedDuringWriteIsNotKept(){
+        CompletableFuture<Page<Anime>> loading = new CompletableFuture<>();
+        CompletableFuture<Page<Anime>> first = animePageCache.get(PageRequest.of(0, 20), () -> {
+            loads.incrementAndGet();
+            return loading;
+        });
+        animePageCache.invalidateAll();
+        loading.complete(new PageImpl<>(List.of(AnimeCreator.createValidAnime())));
+
+        Assertions.assertThat(first.join().getContent()).hasSize(1);
+        animePageCache.get(PageRequest.of(0, 20), this::load).join();
+        Assertions.assertThat(loads).hasValue(2);
+
+    }
+
+    @Test
+    @DisplayName("Get always loads when the cache is disabled")
+    void getAlwaysLoadsWhenDisabled(){
+        AnimeProperties animeProperties = new AnimeProperties();
+        animeProperties.getPageCache().setEnabled(false);
+        AnimePageCache disabled = new AnimePageCache(animeProperties, new SimpleMeterRegistry());
+
+        disabled.get(PageRequest.of(0, 20), this::load).join();
+        disabled.get(PageRequest.of(0, 20), this::load).join();
+
+        Assertions.assertThat(loads).hasValue(2);
+
+    }
+}
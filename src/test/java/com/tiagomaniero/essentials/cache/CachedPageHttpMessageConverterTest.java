@@ -0,0 +1,104 @@
+package com.tiagomaniero.essentials.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tiagomaniero.essentials.domain.Anime;
+import com.tiagomaniero.essentials.util.AnimeCreator;
+import com.tiagomaniero.essentials.wrapper.CachedPage;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.server.Compression;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class CachedPageHttpMessageConverterTest {
+
+    private final AtomicInteger serializations = new AtomicInteger();
+    private CachedPageHttpMessageConverter converter;
+    private MockHttpServletRequest request;
+
+    @BeforeEach
+    void setUp(){
+        ObjectMapper countingMapper = new ObjectMapper() {
+            @Override
+            public byte[] writeValueAsBytes(Object value) throws JsonProcessingException {
+                serializations.incrementAndGet();
+                return super.writeValueAsBytes(value);
+            }
+        };
+        Compression compression = new Compression();
+        compression.setEnabled(true);
+        compression.setMinResponseSize(DataSize.ofBytes(64));
+        converter = new CachedPageHttpMessageConverter(
+                List.of(new MappingJackson2HttpMessageConverter(countingMapper)), compression);
+        request = new MockHttpServletRequest();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @AfterEach
+    void tearDown(){
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    @DisplayName("Write serializes a cached page once and writes the same bytes afterwards")
+    void writeSerializesCachedPageOnce() throws IOException {
+        CachedPage<Anime> page = new CachedPage<>(new PageImpl<>(List.of(AnimeCreator.createValidAnime())));
+
+        MockHttpOutputMessage first = write(page);
+        MockHttpOutputMessage second = write(page);
+
+        Assertions.assertThat(serializations).hasValue(1);
+        Assertions.assertThat(second.getBodyAsBytes()).isEqualTo(first.getBodyAsBytes());
+
+    }
+
+    @Test
+    @DisplayName("Write sends the pre-gzipped body when the client accepts gzip and the body is large enough")
+    void writeSendsGzippedBodyWhenAccepted() throws IOException {
+        CachedPage<Anime> page = new CachedPage<>(new PageImpl<>(
+                Collections.nCopies(20, AnimeCreator.createValidAnime())));
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
+
+        MockHttpOutputMessage output = write(page);
+
+        Assertions.assertThat(output.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        Assertions.assertThat(output.getHeaders().getVary()).contains(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        Assertions.assertThat(output.getBodyAsBytes()).startsWith((byte) 0x1f, (byte) 0x8b);
+
+    }
+
+    @Test
+    @DisplayName("Write sends the plain body when the client does not accept gzip")
+    void writeSendsPlainBodyWithoutAcceptEncoding() throws IOException {
+        CachedPage<Anime> page = new CachedPage<>(new PageImpl<>(
+                Collections.nCopies(20, AnimeCreator.createValidAnime())));
+
+        MockHttpOutputMessage output = write(page);
+
+        Assertions.assertThat(output.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+        Assertions.assertThat(output.getBodyAsString()).startsWith("{");
+
+    }
+
+    private MockHttpOutputMessage write(CachedPage<Anime> page) throws IOException {
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+        converter.write(page, MediaType.APPLICATION_JSON, output);
+        return output;
+    }
+}
@@ -0,0 +1,148 @@
+package com.tiagomaniero.essentials.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.tiagomaniero.essentials.domain.Anime;
+import com.tiagomaniero.essentials.requests.AnimePostRequestBody;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+class AnimeClientTest {
+    private HttpServer server;
+    private AnimeClient animeClient;
+    private final List<String> authorizations = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.start();
+        animeClient = new AnimeClient(AnimeClientOptions.builder()
+                .baseUri(URI.create("http://localhost:" + server.getAddress().getPort()))
+                .version(HttpClient.Version.HTTP_1_1)
+                .auth(AnimeClientAuth.basic("tiago", "academy"))
+                .retryBackoff(Duration.ofMillis(1))
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    @DisplayName("FindById returns the cached anime when the server answers 304")
+    void findByIdReturnsCachedAnimeWhenServerAnswersNotModified() {
+        AtomicInteger bodiesSent = new AtomicInteger();
+        server.createContext("/api/v1/animes/1", exchange -> {
+            authorizations.add(exchange.getRequestHeaders().getFirst("Authorization"));
+            if ("\"1-0\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                respond(exchange, 304, null);
+                return;
+            }
+            bodiesSent.incrementAndGet();
+            exchange.getResponseHeaders().add("ETag", "\"1-0\"");
+            respond(exchange, 200, "{\"id\":1,\"name\":\"Hellsing\",\"version\":0}");
+        });
+
+        Anime first = animeClient.findById(1).join();
+        Anime second = animeClient.findById(1).join();
+
+        Assertions.assertThat(second).isEqualTo(first);
+        Assertions.assertThat(second.getName()).isEqualTo("Hellsing");
+        Assertions.assertThat(bodiesSent).hasValue(1);
+        Assertions.assertThat(authorizations).hasSize(2).allMatch(value -> value.startsWith("Basic "));
+
+    }
+
+    @Test
+    @DisplayName("Save retries when the server answers 503")
+    void saveRetriesWhenServerAnswersServiceUnavailable() {
+        AtomicInteger attempts = new AtomicInteger();
+        server.createContext("/api/v1/animes", exchange -> {
+            if (attempts.incrementAndGet() == 1) {
+                exchange.getResponseHeaders().add("Retry-After", "0");
+                respond(exchange, 503, "{}");
+                return;
+            }
+            respond(exchange, 201, "{\"id\":2,\"name\":\"Kingdom\",\"version\":0}");
+        });
+
+        Anime anime = animeClient.save(new AnimePostRequestBody("Kingdom")).join();
+
+        Assertions.assertThat(anime.getId()).isEqualTo(2L);
+        Assertions.assertThat(attempts).hasValue(2);
+
+    }
+
+    @Test
+    @DisplayName("Save does not retry when the server answers 503 without Retry-After")
+    void saveDoesNotRetryWhenServerAnswersServiceUnavailableWithoutRetryAfter() {
+        AtomicInteger attempts = new AtomicInteger();
+        server.createContext("/api/v1/animes", exchange -> {
+            attempts.incrementAndGet();
+            respond(exchange, 503, "{\"title\":\"Service Unavailable\"}");
+        });
+
+        Assertions.assertThatThrownBy(() -> animeClient.save(new AnimePostRequestBody("Kingdom")).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(AnimeClientException.class);
+        Assertions.assertThat(attempts).hasValue(1);
+
+    }
+
+    @Test
+    @DisplayName("FindById completes with AnimeClientException when the server answers 400")
+    void findByIdCompletesWithAnimeClientExceptionWhenServerAnswersBadRequest() {
+        server.createContext("/api/v1/animes/9", exchange -> respond(exchange, 400, "{\"title\":\"Anime not found\"}"));
+
+        Assertions.assertThatThrownBy(() -> animeClient.findById(9).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(AnimeClientException.class)
+                .hasMessageContaining("Anime not found");
+
+    }
+
+    @Test
+    @DisplayName("IterateAll follows the cursor until the last page")
+    void iterateAllFollowsCursorUntilLastPage() {
+        server.createContext("/api/v1/animes/cursor", exchange -> {
+            String query = exchange.getRequestURI().getQuery();
+            if (query.contains("after=c1")) {
+                respond(exchange, 200, "{\"content\":[{\"id\":3,\"name\":\"C\"}],\"last\":true}");
+            } else {
+                respond(exchange, 200, "{\"content\":[{\"id\":1,\"name\":\"A\"},{\"id\":2,\"name\":\"B\"}],"
+                        + "\"nextCursor\":\"c1\",\"last\":false}");
+            }
+        });
+
+        List<String> names = animeClient.iterateAll(2).map(Anime::getName).collect(Collectors.toList());
+
+        Assertions.assertThat(names).containsExactly("A", "B", "C");
+
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(bytes);
+        }
+    }
+}
@@ -1,13 +1,29 @@
 package com.tiagomaniero.essentials.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tiagomaniero.essentials.async.AnimeDbExecutor;
+import com.tiagomaniero.essentials.async.AnimeDbExecutor.OperationClass;
+import com.tiagomaniero.essentials.async.AnimeReadCoalescer;
+import com.tiagomaniero.essentials.cache.AnimePageCache;
+import com.tiagomaniero.essentials.config.AnimeProperties;
 import com.tiagomaniero.essentials.domain.Anime;
+import com.tiagomaniero.essentials.exception.BadRequestException;
+import com.tiagomaniero.essentials.exception.PreconditionFailedException;
+import com.tiagomaniero.essentials.handler.RestExceptionHandler;
+import com.tiagomaniero.essentials.readmodel.AnimeReadModel;
+import com.tiagomaniero.essentials.requests.AnimePatchRequestBody;
 import com.tiagomaniero.essentials.requests.AnimePostRequestBody;
 import com.tiagomaniero.essentials.requests.AnimePutRequestBody;
+import com.tiagomaniero.essentials.service.AnimeBatchService;
 import com.tiagomaniero.essentials.service.AnimeService;
 import com.tiagomaniero.essentials.util.AnimeCreator;
 import com.tiagomaniero.essentials.util.AnimePostRequestBodyCreator;
 import com.tiagomaniero.essentials.util.AnimePutRequestBodyCreator;
-import com.tiagomaniero.essentials.util.DateUtil;
+import com.tiagomaniero.essentials.util.ETagUtil;
+import com.tiagomaniero.essentials.wrapper.AnimeBatchItemResult;
+import com.tiagomaniero.essentials.wrapper.CursorPage;
+import com.tiagomaniero.essentials.writebehind.AnimeWriteBehind;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -16,12 +32,26 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
-
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
 
 @ExtendWith(SpringExtension.class)
 class AnimeControllerTest {
@@ -32,7 +62,28 @@ class AnimeControllerTest {
     private AnimeService animeServiceMock;
 
     @Mock
-    private DateUtil dateUtil;
+    private AnimeBatchService animeBatchServiceMock;
+
+    @Mock
+    private AnimeWriteBehind animeWriteBehindMock;
+
+    @Mock
+    private AnimeReadModel animeReadModelMock;
+
+    @Spy
+    private ObjectMapper objectMapper;
+
+    @Spy
+    private ETagUtil eTagUtil;
+
+    @Spy
+    private AnimeDbExecutor animeDbExecutor = new AnimeDbExecutor(new AnimeProperties(), new SimpleMeterRegistry());
+
+    @Spy
+    private AnimePageCache animePageCache = new AnimePageCache(new AnimeProperties(), new SimpleMeterRegistry());
+
+    @Spy
+    private AnimeReadCoalescer animeReadCoalescer = new AnimeReadCoalescer(new AnimeProperties(), new SimpleMeterRegistry());
 
     @BeforeEach
     void setUp(){
@@ -40,20 +91,46 @@ class AnimeControllerTest {
         BDDMockito.when(animeServiceMock.listAll(ArgumentMatchers.any()))
                 .thenReturn(animePage);
 
+        BDDMockito.when(animeServiceMock.listAfter(ArgumentMatchers.any(), ArgumentMatchers.anyInt(), ArgumentMatchers.anyBoolean()))
+                .thenReturn(CursorPage.<Anime>builder()
+                        .content(List.of(AnimeCreator.createValidAnime()))
+                        .size(20)
+                        .numberOfElements(1)
+                        .last(true)
+                        .build());
+
         BDDMockito.when(animeServiceMock.listAllNonPageable())
                 .thenReturn(List.of(AnimeCreator.createValidAnime()));
 
+        BDDMockito.doAnswer(invocation -> {
+                    Consumer<Anime> consumer = invocation.getArgument(0);
+                    consumer.accept(AnimeCreator.createValidAnime());
+                    consumer.accept(AnimeCreator.createValidUpdateddAnime());
+                    return null;
+                })
+                .when(animeServiceMock).streamAll(ArgumentMatchers.any());
+
         BDDMockito.when(animeServiceMock.findByIdorThrowBadRequest(ArgumentMatchers.anyLong()))
                 .thenReturn(AnimeCreator.createValidAnime());
 
         BDDMockito.when(animeServiceMock.findByName(ArgumentMatchers.anyString()))
                 .thenReturn(List.of(AnimeCreator.createValidAnime()));
 
+        BDDMockito.when(animeServiceMock.search(ArgumentMatchers.anyString(), ArgumentMatchers.any()))
+                .thenReturn(animePage);
+
         BDDMockito.when(animeServiceMock.save(ArgumentMatchers.any(AnimePostRequestBody.class)))
                 .thenReturn(AnimeCreator.createValidAnime());
 
+        BDDMockito.when(animeBatchServiceMock.saveAll(ArgumentMatchers.anyList()))
+                .thenReturn(List.of(AnimeBatchItemResult.builder()
+                        .index(0)
+                        .status(AnimeBatchItemResult.Status.CREATED)
+                        .id(AnimeCreator.createValidAnime().getId())
+                        .build()));
+
         BDDMockito.doNothing()
-                .when(animeServiceMock).replace(ArgumentMatchers.any(AnimePutRequestBody.class));
+                .when(animeServiceMock).replace(ArgumentMatchers.any(AnimePutRequestBody.class), ArgumentMatchers.any());
 
         BDDMockito.doNothing()
                 .when(animeServiceMock).deleteById(ArgumentMatchers.anyLong());
@@ -63,7 +140,7 @@ class AnimeControllerTest {
     @DisplayName("List returns list of anime inside page when successful")
     void listReturnsListOfAnimesInsidePageObjectWhenSuccessful(){
         String expectedName = AnimeCreator.createValidAnime().getName();
-        Page<Anime> animePage = animeController.list(null).getBody();
+        Page<Anime> animePage = animeController.list(null).join().getBody();
 
         Assertions.assertThat(animePage).isNotNull();
         Assertions.assertThat(animePage.toList()).isNotEmpty().hasSize(1);
@@ -71,11 +148,34 @@ class AnimeControllerTest {
 
     }
 
+    @Test
+    @DisplayName("List serves a repeated page from the page cache")
+    void listServesRepeatedPageFromPageCache(){
+        animeController.list(PageRequest.of(0, 20)).join();
+        Page<Anime> animePage = animeController.list(PageRequest.of(0, 20)).join().getBody();
+
+        Assertions.assertThat(animePage).isNotNull().hasSize(1);
+        BDDMockito.verify(animeServiceMock, Mockito.times(1)).listAll(PageRequest.of(0, 20));
+
+    }
+
+    @Test
+    @DisplayName("ListByCursor returns list of anime inside cursor page when successful")
+    void listByCursorReturnsListOfAnimesInsideCursorPageWhenSuccessful(){
+        String expectedName = AnimeCreator.createValidAnime().getName();
+        CursorPage<Anime> animePage = animeController.listByCursor(null, 20, false).join().getBody();
+
+        Assertions.assertThat(animePage).isNotNull();
+        Assertions.assertThat(animePage.getContent()).isNotEmpty().hasSize(1);
+        Assertions.assertThat(animePage.getContent().get(0).getName()).isEqualTo(expectedName);
+
+    }
+
     @Test
     @DisplayName("ListAll returns list of anime when successful")
     void listAllReturnsListOfAnimesObjectWhenSuccessful(){
         String expectedName = AnimeCreator.createValidAnime().getName();
-        List<Anime> animeList = animeController.listAll().getBody();
+        List<Anime> animeList = animeController.listAll().join().getBody();
 
         Assertions.assertThat(animeList).isNotNull();
         Assertions.assertThat(animeList).isNotEmpty().hasSize(1);
@@ -83,22 +183,92 @@ class AnimeControllerTest {
 
     }
 
+    @Test
+    @DisplayName("StreamAll writes one json line per anime when successful")
+    void streamAllWritesOneJsonLinePerAnimeWhenSuccessful() throws IOException {
+        StreamingResponseBody body = animeController.streamAll().getBody();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        Assertions.assertThat(body).isNotNull();
+        body.writeTo(outputStream);
+
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        Assertions.assertThat(lines).hasSize(2);
+        Assertions.assertThat(objectMapper.readValue(lines[0], Anime.class)).isEqualTo(AnimeCreator.createValidAnime());
+        Assertions.assertThat(objectMapper.readValue(lines[1], Anime.class)).isEqualTo(AnimeCreator.createValidUpdateddAnime());
+
+    }
+
+    @Test
+    @DisplayName("StreamAll returns 503 with Retry-After before streaming when no scan permit is free")
+    void streamAllReturnsServiceUnavailableWhenNoScanPermitIsFree() throws Exception {
+        BDDMockito.doThrow(new RejectedExecutionException("SCAN bulkhead is full"))
+                .when(animeDbExecutor).acquire(OperationClass.SCAN);
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(animeController)
+                .setControllerAdvice(new RestExceptionHandler(new AnimeProperties()))
+                .build();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/v1/animes/all/stream"))
+                .andExpect(MockMvcResultMatchers.status().isServiceUnavailable())
+                .andExpect(MockMvcResultMatchers.header().exists(HttpHeaders.RETRY_AFTER));
+        BDDMockito.verify(animeServiceMock, Mockito.never()).streamAll(ArgumentMatchers.any());
+
+    }
+
     @Test
     @DisplayName("FindById returns list of anime when successful")
     void findByIdReturnsListOfAnimesObjectWhenSuccessful(){
         Long expectedId = AnimeCreator.createValidAnime().getId();
-        Anime anime = animeController.findById(1L).getBody();
+        Anime anime = animeController.findById(1L).join().getBody();
 
         Assertions.assertThat(anime).isNotNull();
         Assertions.assertThat(anime.getId()).isNotNull().isEqualTo(expectedId);
 
     }
 
+    @Test
+    @DisplayName("FindById returns an ETag built from the anime version")
+    void findByIdReturnsETagBuiltFromAnimeVersion(){
+        Anime anime = AnimeCreator.createValidAnime();
+        anime.setVersion(3L);
+        BDDMockito.when(animeServiceMock.findByIdorThrowBadRequest(ArgumentMatchers.anyLong()))
+                .thenReturn(anime);
+
+        ResponseEntity<Anime> responseEntity = animeController.findById(1L).join();
+
+        Assertions.assertThat(responseEntity.getHeaders().getETag()).isEqualTo("\"1-3\"");
+
+    }
+
+    @Test
+    @DisplayName("List returns an ETag that changes when a listed anime changes")
+    void listReturnsETagThatChangesWhenListedAnimeChanges(){
+        String eTag = animeController.list(null).join().getHeaders().getETag();
+        Anime changed = AnimeCreator.createValidAnime();
+        changed.setVersion(1L);
+        BDDMockito.when(animeServiceMock.listAll(ArgumentMatchers.any()))
+                .thenReturn(new PageImpl<>(List.of(changed)));
+
+        Assertions.assertThat(eTag).isNotNull();
+        Assertions.assertThat(animeController.list(null).join().getHeaders().getETag()).isNotNull().isNotEqualTo(eTag);
+
+    }
+
+    @Test
+    @DisplayName("Replace passes the If-Match version to the service")
+    void replacePassesIfMatchVersionToService(){
+        animeController.replace(AnimePutRequestBodyCreator.createAnimeToBeUpadted(), "\"1-7\"").join();
+
+        BDDMockito.verify(animeServiceMock)
+                .replace(ArgumentMatchers.any(AnimePutRequestBody.class), ArgumentMatchers.eq(7L));
+
+    }
+
     @Test
     @DisplayName("FindByName returns list of anime when successful")
     void findByNameReturnsListOfAnimesObjectWhenSuccessful(){
         String expectedName = AnimeCreator.createValidAnime().getName();
-        List<Anime> animeList = animeController.findByName("anime").getBody();
+        List<Anime> animeList = animeController.findByName("anime").join().getBody();
 
         Assertions.assertThat(animeList).isNotNull();
         Assertions.assertThat(animeList).isNotEmpty().hasSize(1);
@@ -112,45 +282,143 @@ class AnimeControllerTest {
         BDDMockito.when(animeServiceMock.findByName(ArgumentMatchers.anyString()))
                 .thenReturn(Collections.emptyList());
 
-        List<Anime> animeList = animeController.findByName("anime").getBody();
+        List<Anime> animeList = animeController.findByName("anime").join().getBody();
 
         Assertions.assertThat(animeList).isNotNull().isEmpty();
 
     }
 
+    @Test
+    @DisplayName("Search returns page of anime when successful")
+    void searchReturnsPageOfAnimesWhenSuccessful(){
+        String expectedName = AnimeCreator.createValidAnime().getName();
+        Page<Anime> animePage = animeController.search("hajime", null).join().getBody();
+
+        Assertions.assertThat(animePage).isNotNull();
+        Assertions.assertThat(animePage.toList()).isNotEmpty().hasSize(1);
+        Assertions.assertThat(animePage.toList().get(0).getName()).isEqualTo(expectedName);
+
+    }
+
     @Test
     @DisplayName("Save returns anime when successful")
     void saveReturnsAnimeWhenSuccessful(){
-        Anime anime = animeController.save(AnimePostRequestBodyCreator.createAnimeToBeSaved()).getBody();
+        Anime anime = animeController.save(AnimePostRequestBodyCreator.createAnimeToBeSaved()).join().getBody();
 
         Assertions.assertThat(anime).isNotNull().isEqualTo(AnimeCreator.createValidAnime());
 
     }
 
+    @Test
+    @DisplayName("FindById returns anime from the read model without the database when the read model is ready")
+    void findByIdReturnsAnimeFromReadModelWhenReady(){
+        BDDMockito.when(animeReadModelMock.isReady()).thenReturn(true);
+        BDDMockito.when(animeReadModelMock.findById(ArgumentMatchers.anyLong()))
+                .thenReturn(Optional.of(AnimeCreator.createValidAnime()));
+
+        Anime anime = animeController.findById(1L).join().getBody();
+
+        Assertions.assertThat(anime).isEqualTo(AnimeCreator.createValidAnime());
+        BDDMockito.verify(animeServiceMock, Mockito.never()).findByIdorThrowBadRequest(ArgumentMatchers.anyLong());
+
+    }
+
+    @Test
+    @DisplayName("FindById throws BadRequestException when the read model is ready and the anime is not in it")
+    void findByIdThrowsBadRequestExceptionWhenReadModelHasNoAnime(){
+        BDDMockito.when(animeReadModelMock.isReady()).thenReturn(true);
+        BDDMockito.when(animeReadModelMock.findById(ArgumentMatchers.anyLong())).thenReturn(Optional.empty());
+
+        Assertions.assertThatExceptionOfType(BadRequestException.class)
+                .isThrownBy(() -> animeController.findById(1L));
+
+    }
+
+    @Test
+    @DisplayName("Save returns anime after the write-behind batch commits when write-behind is enabled")
+    void saveReturnsAnimeFromWriteBehindWhenEnabled(){
+        BDDMockito.when(animeWriteBehindMock.isEnabled()).thenReturn(true);
+        BDDMockito.when(animeWriteBehindMock.submit(ArgumentMatchers.any(AnimePostRequestBody.class)))
+                .thenReturn(new AnimeWriteBehind.Accepted(1L,
+                        CompletableFuture.completedFuture(AnimeCreator.createValidAnime())));
+
+        ResponseEntity<Anime> response = animeController.save(AnimePostRequestBodyCreator.createAnimeToBeSaved()).join();
+
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        Assertions.assertThat(response.getBody()).isEqualTo(AnimeCreator.createValidAnime());
+        BDDMockito.verify(animeServiceMock, Mockito.never()).save(ArgumentMatchers.any(AnimePostRequestBody.class));
+
+    }
+
+    @Test
+    @DisplayName("SaveAsync throws BadRequestException when write-behind is disabled")
+    void saveAsyncThrowsBadRequestExceptionWhenWriteBehindIsDisabled(){
+        Assertions.assertThatExceptionOfType(BadRequestException.class)
+                .isThrownBy(() -> animeController.saveAsync(AnimePostRequestBodyCreator.createAnimeToBeSaved()));
+
+    }
+
+    @Test
+    @DisplayName("SaveAll returns the result of every item when successful")
+    void saveAllReturnsResultOfEveryItemWhenSuccessful(){
+        List<AnimeBatchItemResult> results = animeController
+                .saveAll(List.of(AnimePostRequestBodyCreator.createAnimeToBeSaved())).join().getBody();
+
+        Assertions.assertThat(results).isNotNull().hasSize(1);
+        Assertions.assertThat(results.get(0).getId()).isEqualTo(AnimeCreator.createValidAnime().getId());
+
+    }
+
     @Test
     @DisplayName("Replace returns void and update anime when successful")
     void replaceupadteAnimeWhenSuccessful(){
         Assertions.assertThatCode(() ->
-                animeController.replace(AnimePutRequestBodyCreator.createAnimeToBeUpadted()))
+                animeController.replace(AnimePutRequestBodyCreator.createAnimeToBeUpadted(), null).join())
                 .doesNotThrowAnyException();
 
         ResponseEntity<Void> voidResponseEntity = animeController
-                .replace(AnimePutRequestBodyCreator.createAnimeToBeUpadted());
+                .replace(AnimePutRequestBodyCreator.createAnimeToBeUpadted(), null).join();
 
         Assertions.assertThat(voidResponseEntity).isNotNull();
         Assertions.assertThat(voidResponseEntity.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
 
     }
 
+    @Test
+    @DisplayName("Patch returns 204 and passes the If-Match version to the service")
+    void patchReturnsNoContentAndPassesIfMatchVersionToService(){
+        AnimePatchRequestBody body = AnimePatchRequestBody.builder().name("Overlord").build();
+
+        ResponseEntity<Void> voidResponseEntity = animeController.patch(1L, body, "\"1-4\"").join();
+
+        Assertions.assertThat(voidResponseEntity.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+        BDDMockito.verify(animeServiceMock).patch(1L, body, 4L);
+
+    }
+
+    @Test
+    @DisplayName("Patch throws PreconditionFailedException when If-Match belongs to another anime or is weak")
+    void patchThrowsPreconditionFailedExceptionWhenIfMatchBelongsToAnotherAnimeOrIsWeak(){
+        AnimePatchRequestBody body = AnimePatchRequestBody.builder().name("Overlord").build();
+
+        Assertions.assertThatExceptionOfType(PreconditionFailedException.class)
+                .isThrownBy(() -> animeController.patch(1L, body, "\"2-4\""));
+        Assertions.assertThatExceptionOfType(PreconditionFailedException.class)
+                .isThrownBy(() -> animeController.patch(1L, body, "W/\"1-4\""));
+        BDDMockito.verify(animeServiceMock, BDDMockito.never())
+                .patch(ArgumentMatchers.anyLong(), ArgumentMatchers.any(), ArgumentMatchers.any());
+
+    }
+
     @Test
     @DisplayName("Delete returns void and removes anime when successful")
     void deleteRemovesAnimeWhenSuccessful(){
         Assertions.assertThatCode(() ->
-                animeController.delete(1L))
+                animeController.delete(1L).join())
                 .doesNotThrowAnyException();
 
         ResponseEntity<Void> voidResponseEntity = animeController
-                .delete(1L);
+                .delete(1L).join();
 
         Assertions.assertThat(voidResponseEntity).isNotNull();
         Assertions.assertThat(voidResponseEntity.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
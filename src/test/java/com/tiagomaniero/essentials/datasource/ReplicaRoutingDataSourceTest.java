@@ -0,0 +1,120 @@
+package com.tiagomaniero.essentials.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+class ReplicaRoutingDataSourceTest {
+    private SimpleMeterRegistry meterRegistry;
+    private DataSource primary;
+    private DataSource replica;
+
+    @BeforeEach
+    void setUp(){
+        meterRegistry = new SimpleMeterRegistry();
+        primary = database("primary");
+        replica = database("replica");
+    }
+
+    @AfterEach
+    void tearDown(){
+        SecurityContextHolder.clearContext();
+        new JdbcTemplate(primary).execute("drop table anime");
+        new JdbcTemplate(replica).execute("drop table anime");
+    }
+
+    @Test
+    @DisplayName("Read-only transactions read from the replica and the others from the primary")
+    void readOnlyTransactionsReadFromReplicaAndOthersFromPrimary(){
+        DataSource dataSource = routing(List.of(replica), Duration.ofSeconds(5));
+
+        Assertions.assertThat(readName(dataSource, true)).isEqualTo("replica");
+        Assertions.assertThat(readName(dataSource, false)).isEqualTo("primary");
+
+    }
+
+    @Test
+    @DisplayName("Reads stay on the primary for the user that just wrote")
+    void readsStayOnPrimaryForUserThatJustWrote(){
+        DataSource dataSource = routing(List.of(replica), Duration.ofSeconds(5));
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("tiago", null));
+
+        readName(dataSource, false);
+
+        Assertions.assertThat(readName(dataSource, true)).isEqualTo("primary");
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("admin", null));
+        Assertions.assertThat(readName(dataSource, true)).isEqualTo("replica");
+
+    }
+
+    @Test
+    @DisplayName("Reads marked with PrimaryReads go to the primary inside a read-only transaction")
+    void readsMarkedWithPrimaryReadsGoToPrimary(){
+        DataSource dataSource = routing(List.of(replica), Duration.ofSeconds(5));
+
+        Assertions.assertThat(PrimaryReads.run(() -> readName(dataSource, true))).isEqualTo("primary");
+        Assertions.assertThat(readName(dataSource, true)).isEqualTo("replica");
+
+    }
+
+    @Test
+    @DisplayName("A replica that fails to connect is ejected and reads go to the remaining replicas")
+    void replicaThatFailsToConnectIsEjectedAndReadsGoToRemainingReplicas(){
+        DataSource dataSource = routing(List.of(broken(), replica), Duration.ofMinutes(1));
+
+        Assertions.assertThat(readName(dataSource, true)).isEqualTo("replica");
+        Assertions.assertThat(readName(dataSource, true)).isEqualTo("replica");
+        Assertions.assertThat(meterRegistry.get("anime.datasource.replica.ejected").tag("target", "replica-0").gauge().value())
+                .isEqualTo(1);
+        Assertions.assertThat(meterRegistry.get("anime.datasource.connections").tag("target", "replica-1").counter().count())
+                .isEqualTo(2);
+
+    }
+
+    @Test
+    @DisplayName("Reads fall back to the primary when every replica is ejected")
+    void readsFallBackToPrimaryWhenEveryReplicaIsEjected(){
+        DataSource dataSource = routing(List.of(broken()), Duration.ofMinutes(1));
+
+        Assertions.assertThat(readName(dataSource, true)).isEqualTo("primary");
+
+    }
+
+    private DataSource routing(List<DataSource> replicas, Duration ejection){
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, replicas,
+                new ReplicaStickiness(Duration.ofSeconds(5)), ejection, meterRegistry));
+    }
+
+    private static DataSource broken(){
+        return new DriverManagerDataSource("jdbc:h2:mem:broken;IFEXISTS=TRUE", "sa", "");
+    }
+
+    private static String readName(DataSource dataSource, boolean readOnly){
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transactionTemplate.setReadOnly(readOnly);
+        return transactionTemplate.execute(status ->
+                new JdbcTemplate(dataSource).queryForObject("select name from anime", String.class));
+    }
+
+    private static DataSource database(String name){
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table anime (name varchar(255))");
+        jdbcTemplate.update("insert into anime (name) values (?)", name);
+        return dataSource;
+    }
+}
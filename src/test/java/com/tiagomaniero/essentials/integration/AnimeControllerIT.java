@@ -1,13 +1,22 @@
 package com.tiagomaniero.essentials.integration;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.tiagomaniero.essentials.domain.Anime;
+import com.tiagomaniero.essentials.domain.AnimeChange;
 import com.tiagomaniero.essentials.domain.DatabaseUser;
+import com.tiagomaniero.essentials.event.AnimeChangedEvent;
 import com.tiagomaniero.essentials.repository.AnimeRepository;
 import com.tiagomaniero.essentials.repository.DatabaseUserRepository;
 import com.tiagomaniero.essentials.requests.AnimePostRequestBody;
+import com.tiagomaniero.essentials.service.AnimeService;
+import com.tiagomaniero.essentials.statistics.QueryStatsRegistry;
 import com.tiagomaniero.essentials.util.AnimeCreator;
 import com.tiagomaniero.essentials.util.AnimePostRequestBodyCreator;
+import com.tiagomaniero.essentials.util.QueryBudget;
+import com.tiagomaniero.essentials.wrapper.AnimeChangePage;
 import com.tiagomaniero.essentials.wrapper.PageableResponse;
+import com.tiagomaniero.essentials.wrapper.TokenResponse;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -23,12 +32,19 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.test.annotation.DirtiesContext;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.UUID;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @AutoConfigureTestDatabase
@@ -52,6 +68,14 @@ public class AnimeControllerIT {
     @Autowired
     private DatabaseUserRepository databaseUserRepository;
 
+    @Autowired
+    private AnimeService animeService;
+
+    @Autowired
+    private QueryStatsRegistry queryStatsRegistry;
+
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
     private static final DatabaseUser ADMIN = DatabaseUser.builder()
             .name("Administrador")
                 .password("{bcrypt}$2a$10$hSTIR1LEGbkA6US1B0IJVeoTsHrFKzPwXSeE40SvIFckopmMHoUTm")
@@ -69,11 +93,22 @@ public class AnimeControllerIT {
     @TestConfiguration
     @Lazy
     static class Config {
+        private static final String XSRF_TOKEN = UUID.randomUUID().toString();
+
+        // Basic continua sujeito ao CSRF: manda o mesmo token no cookie e no header, como o front faria
+        static ClientHttpResponse sendXsrfToken(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+                throws IOException {
+            request.getHeaders().add(HttpHeaders.COOKIE, "XSRF-TOKEN=" + XSRF_TOKEN);
+            request.getHeaders().set("X-XSRF-TOKEN", XSRF_TOKEN);
+            return execution.execute(request, body);
+        }
+
         @Bean(name = "testRestTemplateRoleUser")
         public TestRestTemplate testRestTemplateRoleUserCreator(@Value("${local.server.port}") int port){
             RestTemplateBuilder restTemplateBuilder = new RestTemplateBuilder()
                     .rootUri("http://localhost:"+port)
-                    .basicAuthentication("tiago", "academy");
+                    .basicAuthentication("tiago", "academy")
+                    .additionalInterceptors(Config::sendXsrfToken);
 
             return new TestRestTemplate(restTemplateBuilder);
         }
@@ -82,7 +117,8 @@ public class AnimeControllerIT {
         public TestRestTemplate testRestTemplateRoleAdminCreator(@Value("${local.server.port}") int port){
             RestTemplateBuilder restTemplateBuilder = new RestTemplateBuilder()
                     .rootUri("http://localhost:"+port)
-                    .basicAuthentication("admin", "academy");
+                    .basicAuthentication("admin", "academy")
+                    .additionalInterceptors(Config::sendXsrfToken);
 
             return new TestRestTemplate(restTemplateBuilder);
         }
@@ -142,13 +178,160 @@ public class AnimeControllerIT {
 
     }
 
+    @Test
+    @DisplayName("List stays within its query budget")
+    void listStaysWithinQueryBudget(){
+        animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+        databaseUserRepository.save(USER);
+
+        testRestTemplateRoleUser.exchange("/api/v1/animes", HttpMethod.GET, null,
+                new ParameterizedTypeReference<PageableResponse<Anime>>() {
+                });
+
+        // select da página + count
+        QueryBudget.assertWithinBudget(queryStatsRegistry, HttpMethod.GET, "/api/v1/animes", 2);
+
+    }
+
+    @Test
+    @DisplayName("FindById stays within its query budget")
+    void findByIdStaysWithinQueryBudget(){
+        Anime savedAnime = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+        databaseUserRepository.save(USER);
+
+        testRestTemplateRoleUser.getForObject("/api/v1/animes/{id}", Anime.class, savedAnime.getId());
+        testRestTemplateRoleUser.getForObject("/api/v1/animes/{id}", Anime.class, savedAnime.getId());
+
+        QueryBudget.assertWithinBudget(queryStatsRegistry, HttpMethod.GET, "/api/v1/animes/{id}", 1);
+
+    }
+
+    @Test
+    @DisplayName("FindById returns 304 when If-None-Match has the current ETag")
+    void findByIdReturnsNotModifiedWhenETagMatches(){
+        Anime savedAnime = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+        databaseUserRepository.save(USER);
+        ResponseEntity<Anime> first = testRestTemplateRoleUser.getForEntity("/api/v1/animes/{id}", Anime.class, savedAnime.getId());
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(first.getHeaders().getETag());
+        ResponseEntity<Anime> second = testRestTemplateRoleUser.exchange("/api/v1/animes/{id}",
+                HttpMethod.GET,
+                new HttpEntity<>(headers),
+                Anime.class,
+                savedAnime.getId());
+
+        Assertions.assertThat(first.getHeaders().getETag()).isNotNull();
+        Assertions.assertThat(second.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        Assertions.assertThat(second.getBody()).isNull();
+
+    }
+
+    @Test
+    @DisplayName("FindById returns Smile when the client accepts it")
+    void findByIdReturnsSmileWhenClientAcceptsIt() throws IOException {
+        Anime savedAnime = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+        databaseUserRepository.save(USER);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(SMILE));
+        ResponseEntity<byte[]> response = testRestTemplateRoleUser.exchange("/api/v1/animes/{id}",
+                HttpMethod.GET,
+                new HttpEntity<>(headers),
+                byte[].class,
+                savedAnime.getId());
+
+        Anime anime = new ObjectMapper(new SmileFactory()).readValue(response.getBody(), Anime.class);
+        Assertions.assertThat(response.getHeaders().getContentType()).isEqualTo(SMILE);
+        Assertions.assertThat(response.getHeaders().getVary()).contains(HttpHeaders.ACCEPT);
+        Assertions.assertThat(anime.getId()).isEqualTo(savedAnime.getId());
+
+    }
+
+    @Test
+    @DisplayName("ListAll is gzipped when the client accepts it")
+    void listAllIsGzippedWhenClientAcceptsIt(){
+        for (int i = 0; i < 100; i++) {
+            animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+        }
+        databaseUserRepository.save(USER);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        ResponseEntity<byte[]> response = testRestTemplateRoleUser.exchange("/api/v1/animes/all",
+                HttpMethod.GET,
+                new HttpEntity<>(headers),
+                byte[].class);
+
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Assertions.assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+
+    }
+
+    @Test
+    @DisplayName("List sends the same pre-gzipped page again from the page cache")
+    void listSendsSamePreGzippedPageFromPageCache(){
+        for (int i = 0; i < 100; i++) {
+            animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+        }
+        databaseUserRepository.save(USER);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        ResponseEntity<byte[]> first = testRestTemplateRoleUser.exchange("/api/v1/animes?size=100",
+                HttpMethod.GET,
+                new HttpEntity<>(headers),
+                byte[].class);
+        ResponseEntity<byte[]> second = testRestTemplateRoleUser.exchange("/api/v1/animes?size=100",
+                HttpMethod.GET,
+                new HttpEntity<>(headers),
+                byte[].class);
+
+        Assertions.assertThat(second.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Assertions.assertThat(second.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        Assertions.assertThat(second.getBody()).isEqualTo(first.getBody());
+        Assertions.assertThat(second.getHeaders().getVary()).containsOnlyOnce(HttpHeaders.ACCEPT);
+
+    }
+
+    @Test
+    @DisplayName("FindById sends the rate limit headers of the user quota")
+    void findByIdSendsRateLimitHeaders(){
+        Anime savedAnime = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+        databaseUserRepository.save(USER);
+
+        ResponseEntity<Anime> response = testRestTemplateRoleUser.getForEntity("/api/v1/animes/{id}", Anime.class, savedAnime.getId());
+
+        Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Assertions.assertThat(response.getHeaders().getFirst("RateLimit-Limit")).isEqualTo("600");
+        Assertions.assertThat(response.getHeaders().getFirst("RateLimit-Remaining")).isEqualTo("599");
+
+    }
+
+    @Test
+    @DisplayName("Changes returns the saves and deletes committed by the service")
+    void changesReturnsCommittedSavesAndDeletes(){
+        databaseUserRepository.save(USER);
+        Anime savedAnime = animeService.save(AnimePostRequestBodyCreator.createAnimeToBeSaved());
+        animeService.deleteById(savedAnime.getId());
+
+        AnimeChangePage page = testRestTemplateRoleUser.getForObject("/api/v1/animes/changes?since=0", AnimeChangePage.class);
+
+        Assertions.assertThat(page).isNotNull();
+        Assertions.assertThat(page.getChanges()).extracting(AnimeChange::getType)
+                .containsExactly(AnimeChangedEvent.Type.CREATED, AnimeChangedEvent.Type.DELETED);
+        Assertions.assertThat(page.getChanges()).extracting(AnimeChange::getAnimeId).containsOnly(savedAnime.getId());
+        Assertions.assertThat(page.getNext()).isEqualTo(page.getChanges().get(1).getSeq());
+
+    }
+
     @Test
     @DisplayName("FindByName returns list of anime when successful")
     void findByNameReturnsListOfAnimesObjectWhenSuccessful(){
         Anime savedAnime = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
         databaseUserRepository.save(USER);
         String expectedName = savedAnime.getName();
-        String url = String.format("/api/v1/animes?name=%s",expectedName);
+        String url = String.format("/api/v1/animes/find?name=%s",expectedName);
         List<Anime> animes = testRestTemplateRoleUser.exchange(
                 url,
                 HttpMethod.GET,
@@ -167,7 +350,7 @@ public class AnimeControllerIT {
     void findByNameReturnsEmptyListOfAnimesObjectNotFound(){
         databaseUserRepository.save(USER);
         List<Anime> animes = testRestTemplateRoleUser.exchange(
-                "/api/v1/animes?name=dbz",
+                "/api/v1/animes/find?name=dbz",
                 HttpMethod.GET,
                 null,
                 new ParameterizedTypeReference<List<Anime>>() {
@@ -233,7 +416,7 @@ public class AnimeControllerIT {
     void deleteReturns403WhenUserIsNotAdmin(){
         Anime savedAnime = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
         databaseUserRepository.save(USER);
-        ResponseEntity<Void> animeResponseEntity = testRestTemplateRoleUser.exchange("/api/v1/admin/{id}",
+        ResponseEntity<Void> animeResponseEntity = testRestTemplateRoleUser.exchange("/api/v1/animes/admin/{id}",
                 HttpMethod.DELETE,
                 null,
                 Void.class,
@@ -243,4 +426,49 @@ public class AnimeControllerIT {
         Assertions.assertThat(animeResponseEntity.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
     }
 
+    @Test
+    @DisplayName("Save with a bearer token skips CSRF and a bearer token cannot issue another one")
+    void bearerTokenSavesWithoutCsrfAndCannotIssueAnotherToken(){
+        databaseUserRepository.save(ADMIN);
+        TokenResponse token = testRestTemplateRoleAdmin.postForObject("/api/v1/auth/token", null, TokenResponse.class);
+        Assertions.assertThat(token).isNotNull();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(token.getAccessToken());
+        TestRestTemplate bearerRestTemplate = new TestRestTemplate(new RestTemplateBuilder()
+                .rootUri(testRestTemplateRoleAdmin.getRootUri()));
+
+        ResponseEntity<Anime> anime = bearerRestTemplate.exchange("/api/v1/animes", HttpMethod.POST,
+                new HttpEntity<>(AnimePostRequestBodyCreator.createAnimeToBeSaved(), headers), Anime.class);
+        ResponseEntity<TokenResponse> refreshed = bearerRestTemplate.exchange("/api/v1/auth/token", HttpMethod.POST,
+                new HttpEntity<>(headers), TokenResponse.class);
+
+        Assertions.assertThat(anime.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        Assertions.assertThat(refreshed.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+
+    }
+
+    @Test
+    @DisplayName("Query stats endpoint is only available to admins")
+    void queryStatsEndpointIsOnlyAvailableToAdmins(){
+        databaseUserRepository.save(ADMIN);
+        // USER e ADMIN são estáticos e guardam o id do teste anterior, então o usuário comum vem da memória
+        TestRestTemplate inMemoryUser = new TestRestTemplate(new RestTemplateBuilder()
+                .rootUri(testRestTemplateRoleAdmin.getRootUri())
+                .basicAuthentication("fulano", "spring123")
+                .additionalInterceptors(Config::sendXsrfToken));
+
+        ResponseEntity<String> asUser = inMemoryUser.getForEntity("/actuator/querystats", String.class);
+        ResponseEntity<Void> resetAsUser = inMemoryUser.exchange("/actuator/querystats",
+                HttpMethod.DELETE, null, Void.class);
+        ResponseEntity<String> asAdmin = testRestTemplateRoleAdmin.getForEntity("/actuator/querystats", String.class);
+        ResponseEntity<String> anonymous = new TestRestTemplate(new RestTemplateBuilder()
+                .rootUri(testRestTemplateRoleAdmin.getRootUri())).getForEntity("/actuator/querystats", String.class);
+
+        Assertions.assertThat(asUser.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+        Assertions.assertThat(resetAsUser.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+        Assertions.assertThat(asAdmin.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Assertions.assertThat(anonymous.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+
+    }
+
 }
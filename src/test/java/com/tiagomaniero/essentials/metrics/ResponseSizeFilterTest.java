@@ -0,0 +1,67 @@
+package com.tiagomaniero.essentials.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+class ResponseSizeFilterTest {
+    private SimpleMeterRegistry meterRegistry;
+    private ResponseSizeFilter responseSizeFilter;
+
+    @BeforeEach
+    void setUp(){
+        meterRegistry = new SimpleMeterRegistry();
+        responseSizeFilter = new ResponseSizeFilter(meterRegistry);
+    }
+
+    @Test
+    @DisplayName("DoFilter records the bytes written per uri pattern when successful")
+    void doFilterRecordsBytesWrittenPerUriPatternWhenSuccessful() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/animes/1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        responseSizeFilter.doFilter(request, response, new MockFilterChain(writing("/api/v1/animes/{id}", "0123456789")));
+
+        DistributionSummary summary = meterRegistry.find(ResponseSizeFilter.METRIC_NAME)
+                .tag("uri", "/api/v1/animes/{id}").summary();
+        Assertions.assertThat(summary).isNotNull();
+        Assertions.assertThat(summary.totalAmount()).isEqualTo(10);
+        Assertions.assertThat(response.getContentAsString()).isEqualTo("0123456789");
+
+    }
+
+    @Test
+    @DisplayName("DoFilter records nothing when no handler matched the request")
+    void doFilterRecordsNothingWhenNoHandlerMatched() throws ServletException, IOException {
+        responseSizeFilter.doFilter(new MockHttpServletRequest("GET", "/missing"), new MockHttpServletResponse(),
+                new MockFilterChain(writing(null, "not found")));
+
+        Assertions.assertThat(meterRegistry.find(ResponseSizeFilter.METRIC_NAME).meters()).isEmpty();
+
+    }
+
+    private static HttpServlet writing(String pattern, String body){
+        return new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                if (pattern != null) {
+                    req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+                }
+                resp.getOutputStream().write(body.getBytes());
+            }
+        };
+    }
+}
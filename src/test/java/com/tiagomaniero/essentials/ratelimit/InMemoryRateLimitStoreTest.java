@@ -0,0 +1,71 @@
+package com.tiagomaniero.essentials.ratelimit;
+
+import com.tiagomaniero.essentials.config.AnimeProperties;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+class InMemoryRateLimitStoreTest {
+    private static final Duration PERIOD = Duration.ofMinutes(1);
+
+    private final AtomicLong now = new AtomicLong();
+    private InMemoryRateLimitStore rateLimitStore;
+
+    @BeforeEach
+    void setUp(){
+        rateLimitStore = new InMemoryRateLimitStore(new AnimeProperties(), now::get);
+    }
+
+    @Test
+    @DisplayName("TryConsume allows a full burst and then rejects with the time to the next token")
+    void tryConsumeAllowsFullBurstThenRejects(){
+        for (int i = 0; i < 3; i++) {
+            RateLimitResult result = rateLimitStore.tryConsume("user:tiago:READ", 3, PERIOD);
+            Assertions.assertThat(result.isAllowed()).isTrue();
+            Assertions.assertThat(result.getRemaining()).isEqualTo(2 - i);
+        }
+
+        RateLimitResult rejected = rateLimitStore.tryConsume("user:tiago:READ", 3, PERIOD);
+
+        Assertions.assertThat(rejected.isAllowed()).isFalse();
+        Assertions.assertThat(rejected.getRemaining()).isZero();
+        Assertions.assertThat(rejected.getRetryAfter()).isEqualTo(Duration.ofSeconds(20));
+
+    }
+
+    @Test
+    @DisplayName("TryConsume refills one token per period divided by limit")
+    void tryConsumeRefillsOverTime(){
+        for (int i = 0; i < 3; i++) {
+            rateLimitStore.tryConsume("user:tiago:READ", 3, PERIOD);
+        }
+
+        now.addAndGet(Duration.ofSeconds(20).toNanos());
+
+        Assertions.assertThat(rateLimitStore.tryConsume("user:tiago:READ", 3, PERIOD).isAllowed()).isTrue();
+        Assertions.assertThat(rateLimitStore.tryConsume("user:tiago:READ", 3, PERIOD).isAllowed()).isFalse();
+
+    }
+
+    @Test
+    @DisplayName("TryConsume keeps separate buckets per key")
+    void tryConsumeKeepsSeparateBucketsPerKey(){
+        rateLimitStore.tryConsume("user:tiago:SCAN", 1, PERIOD);
+
+        Assertions.assertThat(rateLimitStore.tryConsume("user:tiago:SCAN", 1, PERIOD).isAllowed()).isFalse();
+        Assertions.assertThat(rateLimitStore.tryConsume("user:fulano:SCAN", 1, PERIOD).isAllowed()).isTrue();
+        Assertions.assertThat(rateLimitStore.tryConsume("user:tiago:READ", 1, PERIOD).isAllowed()).isTrue();
+
+    }
+
+    @Test
+    @DisplayName("TryConsume always rejects a zero quota")
+    void tryConsumeRejectsZeroQuota(){
+        Assertions.assertThat(rateLimitStore.tryConsume("ip:127.0.0.1:WRITE", 0, PERIOD).isAllowed()).isFalse();
+
+    }
+}
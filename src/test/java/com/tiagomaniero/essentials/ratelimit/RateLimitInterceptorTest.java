@@ -0,0 +1,105 @@
+package com.tiagomaniero.essentials.ratelimit;
+
+import com.tiagomaniero.essentials.async.AnimeDbExecutor.OperationClass;
+import com.tiagomaniero.essentials.config.AnimeProperties;
+import com.tiagomaniero.essentials.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.method.HandlerMethod;
+
+import javax.servlet.DispatcherType;
+
+class RateLimitInterceptorTest {
+    private SimpleMeterRegistry meterRegistry;
+    private RateLimitInterceptor rateLimitInterceptor;
+
+    @BeforeEach
+    void setUp(){
+        AnimeProperties animeProperties = new AnimeProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        rateLimitInterceptor = new RateLimitInterceptor(new InMemoryRateLimitStore(animeProperties),
+                animeProperties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown(){
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("PreHandle throws TooManyRequestsException once the user scan quota is spent")
+    void preHandleThrowsTooManyRequestsWhenScanQuotaIsSpent() throws NoSuchMethodException {
+        authenticate("fulano", "ROLE_USER");
+        HandlerMethod scan = handler("scan");
+
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertThat(rateLimitInterceptor.preHandle(get(), new MockHttpServletResponse(), scan)).isTrue();
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        Assertions.assertThatExceptionOfType(TooManyRequestsException.class)
+                .isThrownBy(() -> rateLimitInterceptor.preHandle(get(), response, scan))
+                .satisfies(e -> Assertions.assertThat(e.getRetryAfter()).isPositive());
+        Assertions.assertThat(response.getHeader("RateLimit-Limit")).isEqualTo("10");
+        Assertions.assertThat(response.getHeader("RateLimit-Remaining")).isEqualTo("0");
+        Assertions.assertThat(meterRegistry.get(RateLimitInterceptor.METRIC_NAME)
+                .tag("class", "scan").tag("role", "USER").counter().count()).isEqualTo(1);
+
+    }
+
+    @Test
+    @DisplayName("PreHandle uses the largest quota among the user roles")
+    void preHandleUsesLargestQuotaAmongRoles() throws NoSuchMethodException {
+        authenticate("tiago", "ROLE_USER", "ROLE_ADMIN");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        rateLimitInterceptor.preHandle(get(), response, handler("read"));
+
+        Assertions.assertThat(response.getHeader("RateLimit-Limit")).isEqualTo("6000");
+        Assertions.assertThat(response.getHeader("RateLimit-Remaining")).isEqualTo("5999");
+
+    }
+
+    @Test
+    @DisplayName("PreHandle does not charge the async dispatch of a request")
+    void preHandleDoesNotChargeAsyncDispatch() throws NoSuchMethodException {
+        authenticate("fulano", "ROLE_USER");
+        MockHttpServletRequest request = get();
+        request.setDispatcherType(DispatcherType.ASYNC);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        rateLimitInterceptor.preHandle(request, response, handler("scan"));
+
+        Assertions.assertThat(response.getHeader("RateLimit-Limit")).isNull();
+
+    }
+
+    @RateLimitClass(OperationClass.SCAN)
+    public void scan(){
+    }
+
+    public void read(){
+    }
+
+    private HandlerMethod handler(String name) throws NoSuchMethodException {
+        return new HandlerMethod(this, name);
+    }
+
+    private static MockHttpServletRequest get(){
+        return new MockHttpServletRequest("GET", "/api/v1/animes/all");
+    }
+
+    private static void authenticate(String username, String... authorities){
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(username, null,
+                AuthorityUtils.createAuthorityList(authorities)));
+    }
+}
@@ -0,0 +1,149 @@
+package com.tiagomaniero.essentials.readmodel;
+
+import com.tiagomaniero.essentials.config.AnimeProperties;
+import com.tiagomaniero.essentials.domain.Anime;
+import com.tiagomaniero.essentials.domain.AnimeChange;
+import com.tiagomaniero.essentials.event.AnimeChangedEvent;
+import com.tiagomaniero.essentials.repository.AnimeRepository;
+import com.tiagomaniero.essentials.service.AnimeChangeService;
+import com.tiagomaniero.essentials.wrapper.AnimeChangePage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+@ExtendWith(SpringExtension.class)
+class AnimeReadModelTest {
+
+    @Mock
+    private AnimeRepository animeRepositoryMock;
+
+    @Mock
+    private AnimeChangeService animeChangeServiceMock;
+
+    @Mock
+    private EntityManager entityManagerMock;
+
+    @Mock
+    private PlatformTransactionManager transactionManagerMock;
+
+    private SimpleMeterRegistry meterRegistry;
+    private AnimeReadModel animeReadModel;
+
+    @BeforeEach
+    void setUp(){
+        AnimeProperties animeProperties = new AnimeProperties();
+        animeProperties.getReadModel().setEnabled(true);
+        meterRegistry = new SimpleMeterRegistry();
+        BDDMockito.when(animeChangeServiceMock.settledHead()).thenReturn(10L);
+        BDDMockito.when(animeRepositoryMock.streamAll()).thenAnswer(invocation -> Stream.of(
+                new Anime(1L, "Hellsing", 0L),
+                new Anime(2L, "Overlord", 0L)));
+        BDDMockito.when(animeChangeServiceMock.changesSince(ArgumentMatchers.anyLong(), ArgumentMatchers.anyInt()))
+                .thenAnswer(invocation -> page(invocation.getArgument(0), Collections.emptyList()));
+        animeReadModel = new AnimeReadModel(animeProperties, animeRepositoryMock, animeChangeServiceMock,
+                entityManagerMock, transactionManagerMock, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Load serves the catalogue from memory and reports its footprint")
+    void loadServesCatalogueFromMemory(){
+        animeReadModel.load();
+
+        Assertions.assertThat(animeReadModel.isReady()).isTrue();
+        Assertions.assertThat(animeReadModel.findById(2L)).get().extracting(Anime::getName).isEqualTo("Overlord");
+        Assertions.assertThat(animeReadModel.listAll()).extracting(Anime::getId).containsExactly(1L, 2L);
+        Assertions.assertThat(meterRegistry.get("anime.readmodel.footprint").gauge().value()).isPositive();
+        BDDMockito.verify(animeChangeServiceMock).changesSince(ArgumentMatchers.eq(10L), ArgumentMatchers.anyInt());
+
+    }
+
+    @Test
+    @DisplayName("Refresh applies the changes after the loaded head")
+    void refreshAppliesChangesAfterLoadedHead(){
+        animeReadModel.load();
+        BDDMockito.when(animeChangeServiceMock.changesSince(ArgumentMatchers.eq(10L), ArgumentMatchers.anyInt()))
+                .thenReturn(page(12L, List.of(
+                        change(11L, AnimeChangedEvent.Type.CREATED, 3L, "Berserk", 0L),
+                        change(12L, AnimeChangedEvent.Type.DELETED, 1L, null, null))));
+
+        animeReadModel.onAnimeChanged(AnimeChangedEvent.deleted(1L));
+
+        Assertions.assertThat(animeReadModel.listAll()).extracting(Anime::getName).containsExactly("Overlord", "Berserk");
+        Assertions.assertThat(meterRegistry.get("anime.readmodel.lag").timer().count()).isEqualTo(2);
+
+    }
+
+    @Test
+    @DisplayName("Load replays the changes after the settled head that the loaded rows already contain")
+    void loadReplaysChangesAlreadyLoaded(){
+        BDDMockito.when(animeChangeServiceMock.changesSince(ArgumentMatchers.eq(10L), ArgumentMatchers.anyInt()))
+                .thenReturn(page(12L, List.of(
+                        change(11L, AnimeChangedEvent.Type.CREATED, 2L, "Overlord (old)", 0L),
+                        change(12L, AnimeChangedEvent.Type.UPDATED, 1L, "Hellsing", 0L))));
+
+        animeReadModel.load();
+
+        Assertions.assertThat(animeReadModel.listAll()).extracting(Anime::getName).containsExactly("Hellsing", "Overlord");
+
+    }
+
+    @Test
+    @DisplayName("Page cuts the page from memory and only unsorted or by id pages can be served")
+    void pageCutsPageFromMemory(){
+        animeReadModel.load();
+
+        Page<Anime> page = animeReadModel.page(PageRequest.of(1, 1));
+
+        Assertions.assertThat(page.getContent()).extracting(Anime::getName).containsExactly("Overlord");
+        Assertions.assertThat(page.getTotalElements()).isEqualTo(2);
+        Assertions.assertThat(animeReadModel.canServe(PageRequest.of(0, 20, Sort.by("id")))).isTrue();
+        Assertions.assertThat(animeReadModel.canServe(PageRequest.of(0, 20, Sort.by("name")))).isFalse();
+
+    }
+
+    @Test
+    @DisplayName("Nothing is loaded or served when the read model is disabled")
+    void nothingIsLoadedWhenDisabled(){
+        AnimeProperties animeProperties = new AnimeProperties();
+        AnimeReadModel disabled = new AnimeReadModel(animeProperties, animeRepositoryMock, animeChangeServiceMock,
+                entityManagerMock, transactionManagerMock, new SimpleMeterRegistry());
+
+        disabled.load();
+
+        Assertions.assertThat(disabled.isReady()).isFalse();
+        Assertions.assertThat(disabled.canServe(PageRequest.of(0, 20))).isFalse();
+        BDDMockito.verify(animeRepositoryMock, Mockito.never()).streamAll();
+
+    }
+
+    private static AnimeChangePage page(long next, List<AnimeChange> changes) {
+        return AnimeChangePage.builder()
+                .changes(changes)
+                .numberOfElements(changes.size())
+                .next(next)
+                .last(true)
+                .build();
+    }
+
+    private static AnimeChange change(long seq, AnimeChangedEvent.Type type, long animeId, String name, Long version) {
+        return new AnimeChange(seq, type, animeId, name, version, Instant.now());
+    }
+}
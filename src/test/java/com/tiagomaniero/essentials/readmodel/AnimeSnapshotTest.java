@@ -0,0 +1,97 @@
+package com.tiagomaniero.essentials.readmodel;
+
+import com.tiagomaniero.essentials.domain.Anime;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+class AnimeSnapshotTest {
+
+    @Test
+    @DisplayName("Put keeps the animes in id order whatever the insertion order")
+    void putKeepsAnimesInIdOrder(){
+        AnimeSnapshot.Editor editor = AnimeSnapshot.EMPTY.edit();
+        editor.put(3L, "Berserk", 0L);
+        editor.put(1L, "Hellsing", 0L);
+        editor.put(2L, "Overlord", 0L);
+
+        AnimeSnapshot snapshot = editor.publish();
+
+        Assertions.assertThat(snapshot.slice(0, 10)).extracting(Anime::getId).containsExactly(1L, 2L, 3L);
+        Assertions.assertThat(snapshot.find(2L)).get().extracting(Anime::getName).isEqualTo("Overlord");
+        Assertions.assertThat(snapshot.find(4L)).isEmpty();
+
+    }
+
+    @Test
+    @DisplayName("Put ignores a version that is not newer, so replaying a change is a no-op")
+    void putIgnoresStaleVersionSoReplayIsNoOp(){
+        AnimeSnapshot.Editor editor = AnimeSnapshot.EMPTY.edit();
+        editor.put(1L, "Hellsing", 2L);
+
+        Assertions.assertThat(editor.put(1L, "Hellsing (old)", 1L)).isFalse();
+        Assertions.assertThat(editor.put(1L, "Hellsing", 2L)).isFalse();
+        Assertions.assertThat(editor.put(1L, "Hellsing Ultimate", 3L)).isTrue();
+        Assertions.assertThat(editor.put(1L, "Hellsing Ultimate", 3L)).isFalse();
+
+        Anime anime = editor.publish().find(1L).orElseThrow();
+        Assertions.assertThat(anime.getName()).isEqualTo("Hellsing Ultimate");
+        Assertions.assertThat(anime.getVersion()).isEqualTo(3L);
+
+    }
+
+    @Test
+    @DisplayName("A published snapshot does not change when later edits append, update or remove")
+    void publishedSnapshotDoesNotChange(){
+        AnimeSnapshot.Editor editor = AnimeSnapshot.EMPTY.edit();
+        editor.put(1L, "Hellsing", 0L);
+        editor.put(2L, "Overlord", 0L);
+        AnimeSnapshot first = editor.publish();
+
+        AnimeSnapshot.Editor next = first.edit();
+        next.put(3L, "Berserk", 0L);
+        next.put(1L, "Hellsing Ultimate", 1L);
+        next.remove(2L);
+        AnimeSnapshot second = next.publish();
+
+        Assertions.assertThat(first.slice(0, 10)).extracting(Anime::getName).containsExactly("Hellsing", "Overlord");
+        Assertions.assertThat(second.slice(0, 10)).extracting(Anime::getName)
+                .containsExactly("Hellsing Ultimate", "Berserk");
+
+    }
+
+    @Test
+    @DisplayName("Publish compacts the names left behind by updates without losing any")
+    void publishCompactsDeadNames(){
+        AnimeSnapshot.Editor editor = AnimeSnapshot.EMPTY.edit();
+        editor.put(1L, "Hellsing", 0L);
+        String longName = "x".repeat(1024);
+        for (long version = 1; version <= 200; version++) {
+            editor.put(1L, longName + version, version);
+        }
+        editor.put(2L, "Overlord", 0L);
+
+        AnimeSnapshot snapshot = editor.publish();
+
+        Assertions.assertThat(snapshot.footprint()).isLessThan(100 * 1024);
+        Assertions.assertThat(snapshot.slice(0, 10)).extracting(Anime::getName)
+                .containsExactly(longName + 200, "Overlord");
+
+    }
+
+    @Test
+    @DisplayName("Slice clamps the range to the catalogue")
+    void sliceClampsRange(){
+        AnimeSnapshot.Editor editor = AnimeSnapshot.EMPTY.edit();
+        editor.put(1L, "Hellsing", 0L);
+        AnimeSnapshot snapshot = editor.publish();
+
+        List<Anime> beyond = snapshot.slice(5, 25);
+
+        Assertions.assertThat(beyond).isEmpty();
+        Assertions.assertThat(snapshot.slice(0, 25)).hasSize(1);
+
+    }
+}
@@ -0,0 +1,38 @@
+package com.tiagomaniero.essentials.repository;
+
+import com.tiagomaniero.essentials.domain.Anime;
+import com.tiagomaniero.essentials.util.AnimeCreator;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+
+@DataJpaTest
+@Import(AnimeBatchRepository.class)
+@DisplayName("Tests for batch repository")
+class AnimeBatchRepositoryTest {
+
+    @Autowired
+    private AnimeBatchRepository animeBatchRepository;
+
+    @Autowired
+    private AnimeRepository animeRepository;
+
+    @Test
+    @DisplayName("Insert all persists animes and returns their ids in order")
+    void insertAllPersistsAnimesAndReturnsIdsInOrder(){
+        List<Long> ids = animeBatchRepository.insertAll(List.of(
+                AnimeCreator.createAnimeToBeSaved(),
+                Anime.builder().name("Overlord").build()));
+
+        Assertions.assertThat(ids).hasSize(2);
+        Assertions.assertThat(animeRepository.findById(ids.get(0))).get()
+                .extracting(Anime::getName).isEqualTo(AnimeCreator.createAnimeToBeSaved().getName());
+        Assertions.assertThat(animeRepository.findById(ids.get(1))).get()
+                .extracting(Anime::getName).isEqualTo("Overlord");
+    }
+}
@@ -0,0 +1,90 @@
+package com.tiagomaniero.essentials.repository;
+
+import com.tiagomaniero.essentials.domain.AnimeChange;
+import com.tiagomaniero.essentials.event.AnimeChangedEvent;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@DataJpaTest
+@DisplayName("Tests for anime change repository")
+class AnimeChangeRepositoryTest {
+
+    @Autowired
+    private AnimeChangeRepository animeChangeRepository;
+
+    @Test
+    @DisplayName("Append all inserts the changes in order with increasing seq")
+    void appendAllInsertsChangesInOrderWithIncreasingSeq(){
+        Instant now = Instant.now();
+        animeChangeRepository.appendAll(List.of(
+                change(AnimeChangedEvent.Type.CREATED, 1L, "Hellsing", now),
+                change(AnimeChangedEvent.Type.DELETED, 1L, null, now)));
+
+        List<AnimeChange> changes = animeChangeRepository.findBySeqGreaterThanOrderBySeqAsc(0L, PageRequest.of(0, 10));
+
+        Assertions.assertThat(changes).extracting(AnimeChange::getType)
+                .containsExactly(AnimeChangedEvent.Type.CREATED, AnimeChangedEvent.Type.DELETED);
+        Assertions.assertThat(changes.get(1).getSeq()).isGreaterThan(changes.get(0).getSeq());
+
+    }
+
+    @Test
+    @DisplayName("Find head before returns the highest seq changed before the instant")
+    void findHeadBeforeReturnsHighestSeqChangedBeforeInstant(){
+        Instant old = Instant.now().minus(Duration.ofMinutes(1));
+        animeChangeRepository.appendAll(List.of(
+                change(AnimeChangedEvent.Type.CREATED, 1L, "Hellsing", old),
+                change(AnimeChangedEvent.Type.CREATED, 2L, "Overlord", Instant.now())));
+        List<AnimeChange> changes = animeChangeRepository.findBySeqGreaterThanOrderBySeqAsc(0L, PageRequest.of(0, 10));
+
+        Assertions.assertThat(animeChangeRepository.findHeadBefore(Instant.now().minus(Duration.ofSeconds(5))))
+                .isEqualTo(changes.get(0).getSeq());
+
+    }
+
+    @Test
+    @DisplayName("Find superseded before returns only old entries that have a newer entry for the same anime")
+    void findSupersededBeforeReturnsOnlyOldSupersededEntries(){
+        Instant old = Instant.now().minus(Duration.ofDays(2));
+        animeChangeRepository.appendAll(List.of(
+                change(AnimeChangedEvent.Type.CREATED, 1L, "Hellsing", old),
+                change(AnimeChangedEvent.Type.UPDATED, 1L, "Hellsing Ultimate", old),
+                change(AnimeChangedEvent.Type.CREATED, 2L, "Overlord", old)));
+        List<AnimeChange> changes = animeChangeRepository.findBySeqGreaterThanOrderBySeqAsc(0L, PageRequest.of(0, 10));
+
+        List<Long> superseded = animeChangeRepository.findSupersededBefore(Instant.now().minus(Duration.ofDays(1)),
+                PageRequest.of(0, 10));
+
+        Assertions.assertThat(superseded).containsExactly(changes.get(0).getSeq());
+
+    }
+
+    @Test
+    @DisplayName("Delete by type and changed at before removes only old tombstones")
+    void deleteByTypeAndChangedAtBeforeRemovesOnlyOldTombstones(){
+        animeChangeRepository.appendAll(List.of(
+                change(AnimeChangedEvent.Type.DELETED, 1L, null, Instant.now().minus(Duration.ofDays(8))),
+                change(AnimeChangedEvent.Type.DELETED, 2L, null, Instant.now())));
+
+        int removed = animeChangeRepository.deleteByTypeAndChangedAtBefore(AnimeChangedEvent.Type.DELETED,
+                Instant.now().minus(Duration.ofDays(7)));
+
+        Assertions.assertThat(removed).isEqualTo(1);
+        Assertions.assertThat(animeChangeRepository.findAll().stream().map(AnimeChange::getAnimeId)
+                .collect(Collectors.toList())).containsExactly(2L);
+
+    }
+
+    private static AnimeChange change(AnimeChangedEvent.Type type, Long animeId, String name, Instant changedAt){
+        return AnimeChange.builder().type(type).animeId(animeId).name(name).changedAt(changedAt).build();
+    }
+}
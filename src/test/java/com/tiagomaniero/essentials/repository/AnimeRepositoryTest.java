@@ -7,10 +7,14 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
 
 import javax.validation.ConstraintViolationException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @DataJpaTest
 @DisplayName("Tests for repository")
@@ -77,6 +81,99 @@ class AnimeRepositoryTest {
 
     }
 
+    @Test
+    @DisplayName("Find by name starting with returns animes whose name starts with the prefix in any case")
+    public void findByNameStartingWithReturnsAnimesWhenSuccessful(){
+        Anime savedAnime = this.animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+        Assertions.assertThat(this.animeRepository.findByNameStartingWithIgnoreCase("hajime", PageRequest.of(0, 5)))
+                .containsExactly(savedAnime);
+        Assertions.assertThat(this.animeRepository.findByNameStartingWithIgnoreCase("Ippo", PageRequest.of(0, 5)))
+                .isEmpty();
+
+    }
+
+    @Test
+    @DisplayName("Find by id greater than returns animes after the given id in id order")
+    public void findByIdGreaterThanReturnsAnimesAfterIdWhenSuccessful(){
+        Anime first = this.animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+        Anime second = this.animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+        Anime third = this.animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+        List<Anime> animes = this.animeRepository.findByIdGreaterThanOrderByIdAsc(first.getId(), PageRequest.of(0, 1));
+
+        Assertions.assertThat(animes)
+                .hasSize(1)
+                .containsExactly(second)
+                .doesNotContain(third);
+
+    }
+
+    @Test
+    @DisplayName("Stream all returns every anime when successful")
+    public void streamAllReturnsEveryAnimeWhenSuccessful(){
+        Anime first = this.animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+        Anime second = this.animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+        try (Stream<Anime> animes = this.animeRepository.streamAll()) {
+            Assertions.assertThat(animes.collect(Collectors.toList()))
+                    .hasSize(2)
+                    .contains(first, second);
+        }
+
+    }
+
+    @Test
+    @DisplayName("Update attributes changes the row and bumps the version when successful")
+    public void updateAttributesChangesRowAndBumpsVersionWhenSuccessful(){
+        Anime savedAnime = this.animeRepository.saveAndFlush(AnimeCreator.createAnimeToBeSaved());
+
+        Optional<Long> version = this.animeRepository.updateAttributes(savedAnime.getId(), savedAnime.getVersion(), Map.of("name", "Overlord"));
+
+        Anime updatedAnime = this.animeRepository.findById(savedAnime.getId()).orElseThrow();
+        Assertions.assertThat(version).contains(savedAnime.getVersion() + 1);
+        Assertions.assertThat(updatedAnime.getName()).isEqualTo("Overlord");
+        Assertions.assertThat(updatedAnime.getVersion()).isEqualTo(savedAnime.getVersion() + 1);
+
+    }
+
+    @Test
+    @DisplayName("Update attributes returns the new version when the update is unconditional")
+    public void updateAttributesReturnsNewVersionWhenUpdateIsUnconditional(){
+        Anime savedAnime = this.animeRepository.saveAndFlush(AnimeCreator.createAnimeToBeSaved());
+
+        Optional<Long> version = this.animeRepository.updateAttributes(savedAnime.getId(), null, Map.of("name", "Overlord"));
+
+        Assertions.assertThat(version).contains(savedAnime.getVersion() + 1);
+        Assertions.assertThat(this.animeRepository.findById(savedAnime.getId()).orElseThrow().getVersion())
+                .isEqualTo(savedAnime.getVersion() + 1);
+
+    }
+
+    @Test
+    @DisplayName("Update attributes returns empty when the version does not match")
+    public void updateAttributesReturnsZeroWhenVersionDoesNotMatch(){
+        Anime savedAnime = this.animeRepository.saveAndFlush(AnimeCreator.createAnimeToBeSaved());
+
+        Optional<Long> version = this.animeRepository.updateAttributes(savedAnime.getId(), savedAnime.getVersion() + 1, Map.of("name", "Overlord"));
+
+        Assertions.assertThat(version).isEmpty();
+        Assertions.assertThat(this.animeRepository.findById(savedAnime.getId()).orElseThrow().getName())
+                .isEqualTo(savedAnime.getName());
+
+    }
+
+    @Test
+    @DisplayName("Delete directly returns the number of deleted rows")
+    public void deleteDirectlyByIdReturnsNumberOfDeletedRows(){
+        Anime savedAnime = this.animeRepository.saveAndFlush(AnimeCreator.createAnimeToBeSaved());
+
+        Assertions.assertThat(this.animeRepository.deleteDirectlyById(savedAnime.getId())).isEqualTo(1);
+        Assertions.assertThat(this.animeRepository.deleteDirectlyById(savedAnime.getId())).isZero();
+        Assertions.assertThat(this.animeRepository.findById(savedAnime.getId())).isEmpty();
+
+    }
+
     @Test
     @DisplayName("Save throws ConstraintViolationException when name is empty")
     public void saveThrowsConstraintViolationExceptionWhenNameIsEmpty(){
@@ -0,0 +1,60 @@
+package com.tiagomaniero.essentials.repository;
+
+import com.tiagomaniero.essentials.domain.Anime;
+import com.tiagomaniero.essentials.util.AnimeCreator;
+import org.assertj.core.api.Assertions;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+/**
+ * Runs the Flyway migrations on H2 in MySQL mode and lets Hibernate validate the entities against them, the same
+ * way the prod profile starts.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:migrations;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DisplayName("Tests for schema migrations")
+class SchemaMigrationTest {
+
+    @Autowired
+    private AnimeRepository animeRepository;
+
+    @Test
+    @DisplayName("Migrated schema matches the entities when successful")
+    void migratedSchemaMatchesEntitiesWhenSuccessful(){
+        Anime savedAnime = this.animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+
+        Assertions.assertThat(this.animeRepository.findById(savedAnime.getId())).isPresent();
+
+    }
+
+    @Test
+    @DisplayName("Baselined database receives the migrations after V1 when successful")
+    void baselinedDatabaseReceivesMigrationsAfterV1WhenSuccessful(){
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:baselined;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        // banco criado pelo ddl-auto: update antes das migrações, já com um anime
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V1__baseline.sql")).execute(dataSource);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("insert into anime (name) values ('Hellsing')");
+
+        Flyway.configure().dataSource(dataSource).baselineOnMigrate(true).load().migrate();
+
+        Assertions.assertThat(jdbcTemplate.queryForObject("select version from anime", Long.class)).isZero();
+        Assertions.assertThat(jdbcTemplate.queryForObject("select count(*) from anime_change", Long.class)).isZero();
+        Assertions.assertThat(jdbcTemplate.queryForObject("select count(*) from write_behind_checkpoint", Long.class))
+                .isZero();
+
+    }
+}
@@ -0,0 +1,101 @@
+package com.tiagomaniero.essentials.search;
+
+import com.tiagomaniero.essentials.config.AnimeProperties;
+import com.tiagomaniero.essentials.domain.Anime;
+import com.tiagomaniero.essentials.event.AnimeChangedEvent;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+class AnimeSearchIndexTest {
+
+    private AnimeSearchIndex animeSearchIndex;
+
+    @BeforeEach
+    void setUp(){
+        animeSearchIndex = new AnimeSearchIndex(new AnimeProperties());
+        animeSearchIndex.index(Anime.builder().id(1L).name("Hajime no Ippo").version(7L).build());
+        animeSearchIndex.index(Anime.builder().id(2L).name("Hajime no Ippo: Rising").build());
+        animeSearchIndex.index(Anime.builder().id(3L).name("Shingeki no Kyojin").build());
+        animeSearchIndex.index(Anime.builder().id(4L).name("Pokémon").build());
+        animeSearchIndex.markReady();
+    }
+
+    @Test
+    @DisplayName("Search matches word prefixes ignoring case and orders by relevance")
+    void searchMatchesPrefixesIgnoringCaseOrderedByRelevance(){
+        Page<Anime> animes = animeSearchIndex.search("HAJIME no ip", PageRequest.of(0, 10));
+
+        Assertions.assertThat(animes.getTotalElements()).isEqualTo(2);
+        Assertions.assertThat(animes.getContent()).extracting(Anime::getId).containsExactly(1L, 2L);
+        Assertions.assertThat(animes.getContent().get(0).getVersion()).isEqualTo(7L);
+
+    }
+
+    @Test
+    @DisplayName("Search matches a later word of the name")
+    void searchMatchesLaterWordOfName(){
+        Page<Anime> animes = animeSearchIndex.search("kyo", PageRequest.of(0, 10));
+
+        Assertions.assertThat(animes.getContent()).extracting(Anime::getName).containsExactly("Shingeki no Kyojin");
+
+    }
+
+    @Test
+    @DisplayName("Search ignores accents")
+    void searchIgnoresAccents(){
+        Assertions.assertThat(animeSearchIndex.search("pokemon", PageRequest.of(0, 10)).getContent())
+                .extracting(Anime::getId).containsExactly(4L);
+
+    }
+
+    @Test
+    @DisplayName("Search tolerates one typo")
+    void searchToleratesOneTypo(){
+        Assertions.assertThat(animeSearchIndex.search("shignkei", PageRequest.of(0, 10)).getContent())
+                .isEmpty();
+        Assertions.assertThat(animeSearchIndex.search("shingkei", PageRequest.of(0, 10)).getContent())
+                .extracting(Anime::getId).containsExactly(3L);
+        Assertions.assertThat(animeSearchIndex.search("kyoijn", PageRequest.of(0, 10)).getContent())
+                .extracting(Anime::getId).containsExactly(3L);
+
+    }
+
+    @Test
+    @DisplayName("Search pages the ranked matches")
+    void searchPagesRankedMatches(){
+        Page<Anime> animes = animeSearchIndex.search("no", PageRequest.of(1, 2));
+
+        Assertions.assertThat(animes.getTotalElements()).isEqualTo(3);
+        Assertions.assertThat(animes.getContent()).hasSize(1);
+
+    }
+
+    @Test
+    @DisplayName("Write events keep the index up to date")
+    void writeEventsKeepIndexUpToDate(){
+        animeSearchIndex.onAnimeChanged(AnimeChangedEvent.updated(Anime.builder().id(3L).name("Attack on Titan").build()));
+        animeSearchIndex.onAnimeChanged(AnimeChangedEvent.deleted(4L));
+
+        Assertions.assertThat(animeSearchIndex.search("shingeki", PageRequest.of(0, 10))).isEmpty();
+        Assertions.assertThat(animeSearchIndex.search("titan", PageRequest.of(0, 10)).getContent())
+                .extracting(Anime::getId).containsExactly(3L);
+        Assertions.assertThat(animeSearchIndex.search("pokemon", PageRequest.of(0, 10))).isEmpty();
+
+    }
+
+    @Test
+    @DisplayName("Startup load does not resurrect an anime deleted while loading")
+    void startupLoadDoesNotResurrectAnimeDeletedWhileLoading(){
+        AnimeSearchIndex loading = new AnimeSearchIndex(new AnimeProperties());
+        loading.remove(5L);
+        loading.indexIfAbsent(Anime.builder().id(5L).name("Overlord").build());
+        loading.markReady();
+
+        Assertions.assertThat(loading.search("overlord", PageRequest.of(0, 10))).isEmpty();
+
+    }
+}
@@ -0,0 +1,56 @@
+package com.tiagomaniero.essentials.security;
+
+import com.tiagomaniero.essentials.config.AnimeProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class CachingPasswordEncoderTest {
+
+    private MeterRegistry meterRegistry;
+    private CachingPasswordEncoder passwordEncoder;
+    private String encoded;
+
+    @BeforeEach
+    void setUp(){
+        meterRegistry = new SimpleMeterRegistry();
+        passwordEncoder = new CachingPasswordEncoder(new AnimeProperties(), meterRegistry);
+        encoded = passwordEncoder.encode("academy");
+    }
+
+    @Test
+    @DisplayName("Matches verifies the password once and answers repeated checks from the cache")
+    void matchesAnswersRepeatedChecksFromCache(){
+        Assertions.assertThat(passwordEncoder.matches("academy", encoded)).isTrue();
+        Assertions.assertThat(passwordEncoder.matches("academy", encoded)).isTrue();
+
+        Assertions.assertThat(meterRegistry.get("anime.auth.password.verify").tag("cache", "miss").timer().count())
+                .isEqualTo(1);
+        Assertions.assertThat(meterRegistry.get("anime.auth.password.verify").tag("cache", "hit").timer().count())
+                .isEqualTo(1);
+
+    }
+
+    @Test
+    @DisplayName("Matches never caches a wrong password")
+    void matchesNeverCachesWrongPassword(){
+        Assertions.assertThat(passwordEncoder.matches("wrong", encoded)).isFalse();
+        Assertions.assertThat(passwordEncoder.matches("wrong", encoded)).isFalse();
+
+        Assertions.assertThat(meterRegistry.get("anime.auth.password.verify").tag("cache", "hit").timer().count())
+                .isZero();
+
+    }
+
+    @Test
+    @DisplayName("Matches misses the cache when the stored password changes")
+    void matchesMissesCacheWhenStoredPasswordChanges(){
+        passwordEncoder.matches("academy", encoded);
+
+        Assertions.assertThat(passwordEncoder.matches("academy", passwordEncoder.encode("other"))).isFalse();
+
+    }
+}
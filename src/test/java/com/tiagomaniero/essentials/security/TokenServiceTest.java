@@ -0,0 +1,74 @@
+package com.tiagomaniero.essentials.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tiagomaniero.essentials.config.AnimeProperties;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import java.time.Duration;
+import java.util.Base64;
+
+class TokenServiceTest {
+
+    private static final String SECRET = Base64.getEncoder().encodeToString(new byte[32]);
+
+    private AnimeProperties animeProperties;
+    private TokenService tokenService;
+
+    @BeforeEach
+    void setUp(){
+        animeProperties = new AnimeProperties();
+        animeProperties.getSecurity().setTokenSecret(SECRET);
+        tokenService = new TokenService(animeProperties, new ObjectMapper());
+    }
+
+    @Test
+    @DisplayName("Verify returns the claims of a token it issued")
+    void verifyReturnsClaimsOfIssuedToken(){
+        String token = tokenService.issue("admin", AuthorityUtils.createAuthorityList("ROLE_USER", "ROLE_ADMIN"));
+
+        Assertions.assertThat(tokenService.verify(token)).hasValueSatisfying(claims -> {
+            Assertions.assertThat(claims.getSub()).isEqualTo("admin");
+            Assertions.assertThat(claims.getRoles()).containsExactlyInAnyOrder("ROLE_USER", "ROLE_ADMIN");
+        });
+
+    }
+
+    @Test
+    @DisplayName("Verify accepts tokens issued by another node sharing the secret")
+    void verifyAcceptsTokenFromNodeSharingSecret(){
+        String token = new TokenService(animeProperties, new ObjectMapper())
+                .issue("tiago", AuthorityUtils.createAuthorityList("ROLE_USER"));
+
+        Assertions.assertThat(tokenService.verify(token)).isPresent();
+
+    }
+
+    @Test
+    @DisplayName("Verify rejects a token whose payload was changed")
+    void verifyRejectsTamperedToken(){
+        String token = tokenService.issue("tiago", AuthorityUtils.createAuthorityList("ROLE_USER"));
+        String[] parts = token.split("\\.");
+        String forgedPayload = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                new String(Base64.getUrlDecoder().decode(parts[1])).replace("ROLE_USER", "ROLE_ADMIN").getBytes());
+
+        Assertions.assertThat(tokenService.verify(parts[0] + "." + forgedPayload + "." + parts[2])).isEmpty();
+        Assertions.assertThat(tokenService.verify("not-a-token")).isEmpty();
+        Assertions.assertThat(tokenService.verify("a.b.c")).isEmpty();
+
+    }
+
+    @Test
+    @DisplayName("Verify rejects an expired token")
+    void verifyRejectsExpiredToken(){
+        animeProperties.getSecurity().setTokenTtl(Duration.ofSeconds(-1));
+        String token = new TokenService(animeProperties, new ObjectMapper())
+                .issue("tiago", AuthorityUtils.createAuthorityList("ROLE_USER"));
+
+        Assertions.assertThat(tokenService.verify(token)).isEmpty();
+
+    }
+}
@@ -0,0 +1,122 @@
+package com.tiagomaniero.essentials.service;
+
+import com.tiagomaniero.essentials.config.AnimeProperties;
+import com.tiagomaniero.essentials.domain.Anime;
+import com.tiagomaniero.essentials.event.AnimeChangedEvent;
+import com.tiagomaniero.essentials.exception.BadRequestException;
+import com.tiagomaniero.essentials.repository.AnimeBatchRepository;
+import com.tiagomaniero.essentials.requests.AnimePostRequestBody;
+import com.tiagomaniero.essentials.util.AnimePostRequestBodyCreator;
+import com.tiagomaniero.essentials.wrapper.AnimeBatchItemResult;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+@ExtendWith(SpringExtension.class)
+class AnimeBatchServiceTest {
+
+    @InjectMocks
+    private AnimeBatchService animeBatchService;
+
+    @Mock
+    private AnimeBatchRepository animeBatchRepositoryMock;
+
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Mock
+    private TransactionTemplate transactionTemplateMock;
+
+    @Mock
+    private ApplicationEventPublisher applicationEventPublisherMock;
+
+    @Spy
+    private AnimeProperties animeProperties = new AnimeProperties();
+
+    @BeforeEach
+    void setUp(){
+        animeProperties.getBatch().setSize(2);
+
+        BDDMockito.when(animeBatchRepositoryMock.insertAll(ArgumentMatchers.anyList()))
+                .thenAnswer(invocation -> LongStream.rangeClosed(1, invocation.<List<Anime>>getArgument(0).size())
+                        .boxed()
+                        .collect(Collectors.toList()));
+
+        BDDMockito.doAnswer(invocation -> {
+                    invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+                    return null;
+                })
+                .when(transactionTemplateMock).executeWithoutResult(ArgumentMatchers.any());
+    }
+
+    @Test
+    @DisplayName("SaveAll inserts valid animes in chunks and reports invalid ones")
+    void saveAllInsertsValidAnimesInChunksAndReportsInvalidOnes(){
+        List<AnimeBatchItemResult> results = animeBatchService.saveAll(Arrays.asList(
+                AnimePostRequestBodyCreator.createAnimeToBeSaved(),
+                new AnimePostRequestBody(""),
+                AnimePostRequestBodyCreator.createAnimeToBeSaved(),
+                null,
+                AnimePostRequestBodyCreator.createAnimeToBeSaved()));
+
+        Assertions.assertThat(results).extracting(AnimeBatchItemResult::getStatus).containsExactly(
+                AnimeBatchItemResult.Status.CREATED,
+                AnimeBatchItemResult.Status.INVALID,
+                AnimeBatchItemResult.Status.CREATED,
+                AnimeBatchItemResult.Status.INVALID,
+                AnimeBatchItemResult.Status.CREATED);
+        Assertions.assertThat(results.get(1).getError()).isEqualTo("The name cannot be empty");
+        Assertions.assertThat(results).extracting(AnimeBatchItemResult::getId).containsExactly(1L, null, 2L, null, 1L);
+        BDDMockito.verify(animeBatchRepositoryMock, BDDMockito.times(2)).insertAll(ArgumentMatchers.anyList());
+        BDDMockito.verify(applicationEventPublisherMock, BDDMockito.times(3))
+                .publishEvent(ArgumentMatchers.any(AnimeChangedEvent.class));
+
+    }
+
+    @Test
+    @DisplayName("SaveAll reports every item of a failed chunk as failed")
+    void saveAllReportsItemsOfFailedChunkAsFailed(){
+        BDDMockito.when(animeBatchRepositoryMock.insertAll(ArgumentMatchers.anyList()))
+                .thenThrow(new DataIntegrityViolationException("name too long"));
+
+        List<AnimeBatchItemResult> results = animeBatchService.saveAll(
+                List.of(AnimePostRequestBodyCreator.createAnimeToBeSaved()));
+
+        Assertions.assertThat(results).hasSize(1);
+        Assertions.assertThat(results.get(0).getStatus()).isEqualTo(AnimeBatchItemResult.Status.FAILED);
+        Assertions.assertThat(results.get(0).getError()).isEqualTo("name too long");
+
+    }
+
+    @Test
+    @DisplayName("SaveAll throws BadRequestException when the batch is too large")
+    void saveAllThrowsBadRequestExceptionWhenBatchIsTooLarge(){
+        animeProperties.getBatch().setMaxItems(1);
+
+        Assertions.assertThatExceptionOfType(BadRequestException.class)
+                .isThrownBy(() -> animeBatchService.saveAll(Collections.nCopies(2,
+                        AnimePostRequestBodyCreator.createAnimeToBeSaved())));
+
+    }
+}
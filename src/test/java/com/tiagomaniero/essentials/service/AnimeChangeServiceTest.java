@@ -0,0 +1,113 @@
+package com.tiagomaniero.essentials.service;
+
+import com.tiagomaniero.essentials.config.AnimeProperties;
+import com.tiagomaniero.essentials.domain.AnimeChange;
+import com.tiagomaniero.essentials.event.AnimeChangedEvent;
+import com.tiagomaniero.essentials.repository.AnimeChangeRepository;
+import com.tiagomaniero.essentials.wrapper.AnimeChangePage;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+@ExtendWith(SpringExtension.class)
+class AnimeChangeServiceTest {
+    @InjectMocks
+    private AnimeChangeService animeChangeService;
+
+    @Mock
+    private AnimeChangeRepository animeChangeRepositoryMock;
+
+    @Spy
+    private AnimeProperties animeProperties = new AnimeProperties();
+
+    @Test
+    @DisplayName("ChangesSince returns the changes and the seq to continue from when successful")
+    void changesSinceReturnsChangesAndNextWhenSuccessful(){
+        Instant now = Instant.now();
+        mockChanges(change(11, now), change(12, now));
+
+        AnimeChangePage page = animeChangeService.changesSince(10, 500);
+
+        Assertions.assertThat(page.getChanges()).extracting(AnimeChange::getSeq).containsExactly(11L, 12L);
+        Assertions.assertThat(page.getNext()).isEqualTo(12);
+        Assertions.assertThat(page.isLast()).isTrue();
+
+    }
+
+    @Test
+    @DisplayName("ChangesSince stops before a recent gap that may still be committed")
+    void changesSinceStopsBeforeRecentGap(){
+        Instant now = Instant.now();
+        mockChanges(change(11, now), change(13, now));
+
+        AnimeChangePage page = animeChangeService.changesSince(10, 500);
+
+        Assertions.assertThat(page.getChanges()).extracting(AnimeChange::getSeq).containsExactly(11L);
+        Assertions.assertThat(page.getNext()).isEqualTo(11);
+        Assertions.assertThat(page.isLast()).isTrue();
+
+    }
+
+    @Test
+    @DisplayName("ChangesSince skips a gap once it is older than the gap timeout")
+    void changesSinceSkipsOldGap(){
+        Instant old = Instant.now().minus(Duration.ofMinutes(1));
+        mockChanges(change(11, old), change(13, old));
+
+        AnimeChangePage page = animeChangeService.changesSince(10, 500);
+
+        Assertions.assertThat(page.getChanges()).extracting(AnimeChange::getSeq).containsExactly(11L, 13L);
+
+    }
+
+    @Test
+    @DisplayName("ChangesSince is not last when more changes than the limit exist")
+    void changesSinceIsNotLastWhenMoreThanLimit(){
+        Instant now = Instant.now();
+        mockChanges(change(11, now), change(12, now));
+
+        AnimeChangePage page = animeChangeService.changesSince(10, 1);
+
+        Assertions.assertThat(page.getChanges()).hasSize(1);
+        Assertions.assertThat(page.isLast()).isFalse();
+
+    }
+
+    @Test
+    @DisplayName("SettledHead stops before a recent gap even when a higher seq is visible")
+    void settledHeadStopsBeforeRecentGap(){
+        Instant now = Instant.now();
+        BDDMockito.when(animeChangeRepositoryMock.findHeadBefore(ArgumentMatchers.any())).thenReturn(10L);
+        mockChanges(change(11, now), change(13, now));
+
+        Assertions.assertThat(animeChangeService.settledHead()).isEqualTo(11);
+        BDDMockito.verify(animeChangeRepositoryMock)
+                .findBySeqGreaterThanOrderBySeqAsc(ArgumentMatchers.eq(10L), ArgumentMatchers.any());
+
+    }
+
+    private void mockChanges(AnimeChange... changes){
+        BDDMockito.when(animeChangeRepositoryMock.findBySeqGreaterThanOrderBySeqAsc(ArgumentMatchers.anyLong(), ArgumentMatchers.any()))
+                .thenReturn(List.of(changes));
+    }
+
+    private static AnimeChange change(long seq, Instant changedAt){
+        return AnimeChange.builder()
+                .seq(seq)
+                .type(AnimeChangedEvent.Type.UPDATED)
+                .animeId(1L)
+                .changedAt(changedAt)
+                .build();
+    }
+}
@@ -1,27 +1,42 @@
 package com.tiagomaniero.essentials.service;
 
+import com.tiagomaniero.essentials.cache.AnimeCache;
+import com.tiagomaniero.essentials.config.AnimeProperties;
 import com.tiagomaniero.essentials.domain.Anime;
+import com.tiagomaniero.essentials.event.AnimeChangedEvent;
 import com.tiagomaniero.essentials.exception.BadRequestException;
+import com.tiagomaniero.essentials.exception.PreconditionFailedException;
 import com.tiagomaniero.essentials.repository.AnimeRepository;
+import com.tiagomaniero.essentials.requests.AnimePatchRequestBody;
+import com.tiagomaniero.essentials.search.AnimeSearchIndex;
 import com.tiagomaniero.essentials.util.AnimeCreator;
 import com.tiagomaniero.essentials.util.AnimePostRequestBodyCreator;
 import com.tiagomaniero.essentials.util.AnimePutRequestBodyCreator;
+import com.tiagomaniero.essentials.util.CursorUtil;
+import com.tiagomaniero.essentials.wrapper.CursorPage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.mockito.BDDMockito;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @ExtendWith(SpringExtension.class)
@@ -33,6 +48,21 @@ class AnimeServiceTest {
     @Mock //dependências
     private AnimeRepository animeRepositoryMock;
 
+    @Spy
+    private CursorUtil cursorUtil;
+
+    @Mock
+    private EntityManager entityManagerMock;
+
+    @Spy
+    private AnimeCache animeCache = new AnimeCache(new AnimeProperties(), new SimpleMeterRegistry());
+
+    @Mock
+    private AnimeSearchIndex animeSearchIndexMock;
+
+    @Mock
+    private ApplicationEventPublisher applicationEventPublisherMock;
+
     @BeforeEach
     void setUp(){
         PageImpl<Anime> animePage = new PageImpl<>(List.of(AnimeCreator.createValidAnime()));
@@ -42,6 +72,12 @@ class AnimeServiceTest {
         BDDMockito.when(animeRepositoryMock.findAll())
                 .thenReturn(List.of(AnimeCreator.createValidAnime()));
 
+        BDDMockito.when(animeRepositoryMock.findByIdGreaterThanOrderByIdAsc(ArgumentMatchers.anyLong(), ArgumentMatchers.any()))
+                .thenReturn(List.of(AnimeCreator.createValidAnime()));
+
+        BDDMockito.when(animeRepositoryMock.streamAll())
+                .thenAnswer(invocation -> List.of(AnimeCreator.createValidAnime()).stream());
+
         BDDMockito.when(animeRepositoryMock.findById(ArgumentMatchers.anyLong()))
                 .thenReturn(Optional.of(AnimeCreator.createValidAnime()));
 
@@ -51,8 +87,11 @@ class AnimeServiceTest {
         BDDMockito.when(animeRepositoryMock.save(ArgumentMatchers.any(Anime.class)))
                 .thenReturn(AnimeCreator.createValidAnime());
 
-        BDDMockito.doNothing()
-                .when(animeRepositoryMock).delete(ArgumentMatchers.any(Anime.class));
+        BDDMockito.when(animeRepositoryMock.deleteDirectlyById(ArgumentMatchers.anyLong()))
+                .thenReturn(1);
+
+        BDDMockito.when(animeRepositoryMock.updateAttributes(ArgumentMatchers.anyLong(), ArgumentMatchers.any(), ArgumentMatchers.anyMap()))
+                .thenReturn(Optional.of(1L));
     }
 
     @Test
@@ -67,6 +106,48 @@ class AnimeServiceTest {
 
     }
 
+    @Test
+    @DisplayName("ListAfter returns last cursor page without count when successful")
+    void listAfterReturnsLastCursorPageWithoutCountWhenSuccessful(){
+        String expectedName = AnimeCreator.createValidAnime().getName();
+        CursorPage<Anime> animePage = animeService.listAfter(null, 5, false);
+
+        Assertions.assertThat(animePage).isNotNull();
+        Assertions.assertThat(animePage.getContent()).isNotEmpty().hasSize(1);
+        Assertions.assertThat(animePage.getContent().get(0).getName()).isEqualTo(expectedName);
+        Assertions.assertThat(animePage.isLast()).isTrue();
+        Assertions.assertThat(animePage.getNextCursor()).isNull();
+        Assertions.assertThat(animePage.getTotalElements()).isNull();
+        BDDMockito.verify(animeRepositoryMock, BDDMockito.never()).count();
+
+    }
+
+    @Test
+    @DisplayName("ListAfter returns next cursor when there are more animes")
+    void listAfterReturnsNextCursorWhenThereAreMoreAnimes(){
+        Anime second = AnimeCreator.createValidUpdateddAnime();
+        second.setId(2L);
+        BDDMockito.when(animeRepositoryMock.findByIdGreaterThanOrderByIdAsc(ArgumentMatchers.anyLong(), ArgumentMatchers.any()))
+                .thenReturn(List.of(AnimeCreator.createValidAnime(), second));
+        BDDMockito.when(animeRepositoryMock.count()).thenReturn(2L);
+
+        CursorPage<Anime> animePage = animeService.listAfter(null, 1, true);
+
+        Assertions.assertThat(animePage.getContent()).hasSize(1);
+        Assertions.assertThat(animePage.isLast()).isFalse();
+        Assertions.assertThat(cursorUtil.decode(animePage.getNextCursor())).isEqualTo(1L);
+        Assertions.assertThat(animePage.getTotalElements()).isEqualTo(2L);
+
+    }
+
+    @Test
+    @DisplayName("ListAfter throws BadRequestException when cursor is invalid")
+    void listAfterThrowsBadRequestExceptionWhenCursorIsInvalid(){
+        Assertions.assertThatExceptionOfType(BadRequestException.class)
+                .isThrownBy(() -> animeService.listAfter("not-a-cursor", 5, false));
+
+    }
+
     @Test
     @DisplayName("ListAll returns list of anime when successful")
     void listAllReturnsListOfAnimesObjectWhenSuccessful(){
@@ -79,6 +160,17 @@ class AnimeServiceTest {
 
     }
 
+    @Test
+    @DisplayName("StreamAll hands every anime to the consumer and detaches it")
+    void streamAllHandsEveryAnimeToConsumerAndDetachesIt(){
+        List<Anime> animes = new ArrayList<>();
+        animeService.streamAll(animes::add);
+
+        Assertions.assertThat(animes).hasSize(1).containsExactly(AnimeCreator.createValidAnime());
+        BDDMockito.verify(entityManagerMock).detach(AnimeCreator.createValidAnime());
+
+    }
+
     @Test
     @DisplayName("FindById returns list of anime when successful")
     void findByIdReturnsListOfAnimesObjectWhenSuccessful(){
@@ -101,6 +193,31 @@ class AnimeServiceTest {
 
     }
 
+    @Test
+    @DisplayName("FindById reads the database only once for repeated lookups")
+    void findByIdReadsDatabaseOnceForRepeatedLookups(){
+        animeService.findByIdorThrowBadRequest(1L);
+        animeService.findByIdorThrowBadRequest(1L);
+
+        BDDMockito.verify(animeRepositoryMock, BDDMockito.times(1)).findById(1L);
+
+    }
+
+    @Test
+    @DisplayName("FindById caches not found ids")
+    void findByIdCachesNotFoundIds(){
+        BDDMockito.when(animeRepositoryMock.findById(ArgumentMatchers.anyLong()))
+                .thenReturn(Optional.empty());
+
+        Assertions.assertThatExceptionOfType(BadRequestException.class)
+                .isThrownBy(() -> animeService.findByIdorThrowBadRequest(1L));
+        Assertions.assertThatExceptionOfType(BadRequestException.class)
+                .isThrownBy(() -> animeService.findByIdorThrowBadRequest(1L));
+
+        BDDMockito.verify(animeRepositoryMock, BDDMockito.times(1)).findById(1L);
+
+    }
+
     @Test
     @DisplayName("FindByName returns list of anime when successful")
     void findByNameReturnsListOfAnimesObjectWhenSuccessful(){
@@ -125,12 +242,42 @@ class AnimeServiceTest {
 
     }
 
+    @Test
+    @DisplayName("Search uses the search index once it is loaded")
+    void searchUsesSearchIndexWhenLoaded(){
+        PageImpl<Anime> animePage = new PageImpl<>(List.of(AnimeCreator.createValidAnime()));
+        BDDMockito.when(animeSearchIndexMock.isReady()).thenReturn(true);
+        BDDMockito.when(animeSearchIndexMock.search(ArgumentMatchers.anyString(), ArgumentMatchers.any()))
+                .thenReturn(animePage);
+
+        Page<Anime> animes = animeService.search("hajime", PageRequest.of(0, 5));
+
+        Assertions.assertThat(animes.toList()).containsExactly(AnimeCreator.createValidAnime());
+        BDDMockito.verify(animeRepositoryMock, BDDMockito.never())
+                .findByNameStartingWithIgnoreCase(ArgumentMatchers.anyString(), ArgumentMatchers.any());
+
+    }
+
+    @Test
+    @DisplayName("Search falls back to a prefix query while the index is loading")
+    void searchFallsBackToPrefixQueryWhileIndexIsLoading(){
+        PageImpl<Anime> animePage = new PageImpl<>(List.of(AnimeCreator.createValidAnime()));
+        BDDMockito.when(animeRepositoryMock.findByNameStartingWithIgnoreCase(ArgumentMatchers.anyString(), ArgumentMatchers.any()))
+                .thenReturn(animePage);
+
+        Page<Anime> animes = animeService.search("Hajime", PageRequest.of(0, 5));
+
+        Assertions.assertThat(animes.toList()).containsExactly(AnimeCreator.createValidAnime());
+
+    }
+
     @Test
     @DisplayName("Save returns anime when successful")
     void saveReturnsAnimeWhenSuccessful(){
         Anime anime = animeService.save(AnimePostRequestBodyCreator.createAnimeToBeSaved());
 
         Assertions.assertThat(anime).isNotNull().isEqualTo(AnimeCreator.createValidAnime());
+        BDDMockito.verify(applicationEventPublisherMock).publishEvent(ArgumentMatchers.any(AnimeChangedEvent.class));
 
     }
 
@@ -138,11 +285,65 @@ class AnimeServiceTest {
     @DisplayName("Replace returns void and update anime when successful")
     void replaceupadteAnimeWhenSuccessful(){
         Assertions.assertThatCode(() ->
-                animeService.replace(AnimePutRequestBodyCreator.createAnimeToBeUpadted()))
+                animeService.replace(AnimePutRequestBodyCreator.createAnimeToBeUpadted(), null))
                 .doesNotThrowAnyException();
 
     }
 
+    @Test
+    @DisplayName("Replace throws BadRequestException when no row was updated")
+    void replaceThrowsBadRequestExceptionWhenNoRowWasUpdated(){
+        BDDMockito.when(animeRepositoryMock.updateAttributes(ArgumentMatchers.anyLong(), ArgumentMatchers.any(), ArgumentMatchers.anyMap()))
+                .thenReturn(Optional.empty());
+
+        Assertions.assertThatExceptionOfType(BadRequestException.class)
+                .isThrownBy(() -> animeService.replace(AnimePutRequestBodyCreator.createAnimeToBeUpadted(), null))
+                .withMessageContaining("Anime ID not found");
+        BDDMockito.verify(animeRepositoryMock, BDDMockito.never()).findById(ArgumentMatchers.anyLong());
+
+    }
+
+    @Test
+    @DisplayName("Replace throws PreconditionFailedException when the version does not match")
+    void replaceThrowsPreconditionFailedExceptionWhenVersionDoesNotMatch(){
+        BDDMockito.when(animeRepositoryMock.updateAttributes(ArgumentMatchers.anyLong(), ArgumentMatchers.eq(1L), ArgumentMatchers.anyMap()))
+                .thenReturn(Optional.empty());
+        BDDMockito.when(animeRepositoryMock.existsById(ArgumentMatchers.anyLong()))
+                .thenReturn(true);
+
+        Assertions.assertThatExceptionOfType(PreconditionFailedException.class)
+                .isThrownBy(() -> animeService.replace(AnimePutRequestBodyCreator.createAnimeToBeUpadted(), 1L));
+        Assertions.assertThatCode(() -> animeService.replace(AnimePutRequestBodyCreator.createAnimeToBeUpadted(), 2L))
+                .doesNotThrowAnyException();
+
+    }
+
+    @Test
+    @DisplayName("Patch updates only the fields set in the body")
+    void patchUpdatesOnlyFieldsSetInBody(){
+        animeService.patch(1L, AnimePatchRequestBody.builder().name("Overlord").build(), null);
+
+        BDDMockito.verify(animeRepositoryMock)
+                .updateAttributes(1L, null, Map.of("name", "Overlord"));
+        ArgumentCaptor<AnimeChangedEvent> event = ArgumentCaptor.forClass(AnimeChangedEvent.class);
+        BDDMockito.verify(applicationEventPublisherMock).publishEvent(event.capture());
+        Assertions.assertThat(event.getValue().getAnime().getVersion()).isEqualTo(1L);
+
+    }
+
+    @Test
+    @DisplayName("Patch with an empty body only checks the anime exists")
+    void patchWithEmptyBodyOnlyChecksAnimeExists(){
+        BDDMockito.when(animeRepositoryMock.findById(ArgumentMatchers.anyLong()))
+                .thenReturn(Optional.empty());
+
+        Assertions.assertThatExceptionOfType(BadRequestException.class)
+                .isThrownBy(() -> animeService.patch(1L, new AnimePatchRequestBody(), null));
+        BDDMockito.verify(animeRepositoryMock, BDDMockito.never())
+                .updateAttributes(ArgumentMatchers.anyLong(), ArgumentMatchers.any(), ArgumentMatchers.anyMap());
+
+    }
+
     @Test
     @DisplayName("Delete returns void and removes anime when successful")
     void deleteRemovesAnimeWhenSuccessful(){
@@ -152,4 +353,17 @@ class AnimeServiceTest {
 
     }
 
+    @Test
+    @DisplayName("Delete throws BadRequestException when no row was deleted")
+    void deleteThrowsBadRequestExceptionWhenNoRowWasDeleted(){
+        BDDMockito.when(animeRepositoryMock.deleteDirectlyById(ArgumentMatchers.anyLong()))
+                .thenReturn(0);
+
+        Assertions.assertThatExceptionOfType(BadRequestException.class)
+                .isThrownBy(() -> animeService.deleteById(1L))
+                .withMessageContaining("Anime ID not found");
+        BDDMockito.verify(applicationEventPublisherMock, BDDMockito.never()).publishEvent(ArgumentMatchers.any());
+
+    }
+
 }
\ No newline at end of file
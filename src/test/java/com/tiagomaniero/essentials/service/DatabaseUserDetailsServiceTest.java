@@ -0,0 +1,97 @@
+package com.tiagomaniero.essentials.service;
+
+import com.tiagomaniero.essentials.config.AnimeProperties;
+import com.tiagomaniero.essentials.domain.DatabaseUser;
+import com.tiagomaniero.essentials.repository.DatabaseUserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+class DatabaseUserDetailsServiceTest {
+
+    private DatabaseUserRepository repositoryMock;
+    private DatabaseUserDetailsService databaseUserDetailsService;
+
+    @BeforeEach
+    void setUp(){
+        repositoryMock = Mockito.mock(DatabaseUserRepository.class);
+        databaseUserDetailsService = new DatabaseUserDetailsService(repositoryMock, new AnimeProperties(), new SimpleMeterRegistry());
+
+        BDDMockito.when(repositoryMock.findByUsername("admin"))
+                .thenReturn(DatabaseUser.builder()
+                        .name("Administrador")
+                        .username("admin")
+                        .password("{noop}academy")
+                        .authorities("ROLE_USER, ROLE_ADMIN")
+                        .build());
+    }
+
+    @Test
+    @DisplayName("LoadUserByUsername queries the database once and parses authorities")
+    void loadUserByUsernameQueriesDatabaseOnceAndParsesAuthorities(){
+        databaseUserDetailsService.loadUserByUsername("admin");
+        UserDetails userDetails = databaseUserDetailsService.loadUserByUsername("admin");
+
+        Assertions.assertThat(AuthorityUtils.authorityListToSet(userDetails.getAuthorities()))
+                .containsExactlyInAnyOrder("ROLE_USER", "ROLE_ADMIN");
+        BDDMockito.verify(repositoryMock, BDDMockito.times(1)).findByUsername("admin");
+
+    }
+
+    @Test
+    @DisplayName("LoadUserByUsername returns a copy that survives credential erasure")
+    void loadUserByUsernameReturnsCopySurvivingCredentialErasure(){
+        ((User) databaseUserDetailsService.loadUserByUsername("admin")).eraseCredentials();
+
+        Assertions.assertThat(databaseUserDetailsService.loadUserByUsername("admin").getPassword())
+                .isEqualTo("{noop}academy");
+
+    }
+
+    @Test
+    @DisplayName("Evict forces the user to be read again")
+    void evictForcesUserToBeReadAgain(){
+        databaseUserDetailsService.loadUserByUsername("admin");
+        databaseUserDetailsService.evict("admin");
+        databaseUserDetailsService.loadUserByUsername("admin");
+
+        BDDMockito.verify(repositoryMock, BDDMockito.times(2)).findByUsername("admin");
+
+    }
+
+    @Test
+    @DisplayName("LoadUserByUsername throws UsernameNotFoundException and does not cache unknown users")
+    void loadUserByUsernameThrowsUsernameNotFoundExceptionForUnknownUser(){
+        Assertions.assertThatExceptionOfType(UsernameNotFoundException.class)
+                .isThrownBy(() -> databaseUserDetailsService.loadUserByUsername("nobody"));
+        Assertions.assertThatExceptionOfType(UsernameNotFoundException.class)
+                .isThrownBy(() -> databaseUserDetailsService.loadUserByUsername("nobody"));
+
+        BDDMockito.verify(repositoryMock, BDDMockito.times(2)).findByUsername(ArgumentMatchers.eq("nobody"));
+
+    }
+
+    @Test
+    @DisplayName("DatabaseUser parses authorities once and returns the same immutable set")
+    void databaseUserParsesAuthoritiesOnce(){
+        DatabaseUser databaseUser = repositoryMock.findByUsername("admin");
+
+        Assertions.assertThat(databaseUser.getAuthorities()).isSameAs(databaseUser.getAuthorities());
+        Assertions.assertThatExceptionOfType(UnsupportedOperationException.class)
+                .isThrownBy(() -> databaseUser.getAuthorities().clear());
+
+        databaseUser.setAuthorities("ROLE_USER");
+        Assertions.assertThat(AuthorityUtils.authorityListToSet(databaseUser.getAuthorities()))
+                .containsExactly("ROLE_USER");
+
+    }
+}
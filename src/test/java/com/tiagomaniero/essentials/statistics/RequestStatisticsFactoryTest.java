@@ -0,0 +1,75 @@
+package com.tiagomaniero.essentials.statistics;
+
+import com.tiagomaniero.essentials.domain.Anime;
+import com.tiagomaniero.essentials.repository.AnimeRepository;
+import com.tiagomaniero.essentials.util.AnimeCreator;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import javax.persistence.EntityManager;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+@DataJpaTest
+class RequestStatisticsFactoryTest {
+
+    @Autowired
+    private AnimeRepository animeRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @AfterEach
+    void tearDown(){
+        RequestQueryStats.restore(null);
+    }
+
+    @Test
+    @DisplayName("Statements and entity loads are credited to the bound request stats")
+    void statementsAndEntityLoadsAreCreditedToBoundRequestStats(){
+        Anime savedAnime = animeRepository.save(AnimeCreator.createAnimeToBeSaved());
+        entityManager.flush();
+        entityManager.clear();
+        RequestQueryStats stats = new RequestQueryStats();
+        RequestQueryStats.bind(stats);
+
+        animeRepository.findById(savedAnime.getId());
+        animeRepository.findAll(PageRequest.of(0, 5));
+
+        // findById + page select, the count is skipped because the only page is not full
+        Assertions.assertThat(stats.getStatements()).isEqualTo(2);
+        Assertions.assertThat(stats.getEntityLoads()).isEqualTo(1);
+        Assertions.assertThat(stats.getQueries()).isGreaterThanOrEqualTo(1);
+
+    }
+
+    @Test
+    @DisplayName("Nothing is credited when no request stats are bound")
+    void nothingIsCreditedWhenNoRequestStatsAreBound(){
+        RequestQueryStats stats = new RequestQueryStats();
+
+        animeRepository.findAll();
+
+        Assertions.assertThat(RequestQueryStats.current()).isNull();
+        Assertions.assertThat(stats.getStatements()).isZero();
+
+    }
+
+    @Test
+    @DisplayName("Propagate binds the caller's stats on the thread running the supplier")
+    void propagateBindsCallerStatsOnThreadRunningSupplier() throws Exception {
+        RequestQueryStats stats = new RequestQueryStats();
+        RequestQueryStats.bind(stats);
+        Supplier<RequestQueryStats> supplier = RequestQueryStats.propagate(RequestQueryStats::current);
+
+        RequestQueryStats seen = CompletableFuture.supplyAsync(supplier).get();
+
+        Assertions.assertThat(seen).isSameAs(stats);
+
+    }
+}
@@ -0,0 +1,20 @@
+package com.tiagomaniero.essentials.util;
+
+import com.tiagomaniero.essentials.statistics.QueryStatsRegistry;
+import org.assertj.core.api.Assertions;
+import org.springframework.http.HttpMethod;
+
+public class QueryBudget {
+
+    /**
+     * Fails when any request to the endpoint issued more than maxStatements SQL statements.
+     */
+    public static void assertWithinBudget(QueryStatsRegistry queryStatsRegistry, HttpMethod method, String uri, long maxStatements){
+        QueryStatsRegistry.EndpointQueryStats stats = queryStatsRegistry.get(method.name(), uri);
+
+        Assertions.assertThat(stats).as("no request recorded for %s %s", method, uri).isNotNull();
+        Assertions.assertThat(stats.getMaxStatements())
+                .as("SQL statements issued by %s %s", method, uri)
+                .isLessThanOrEqualTo(maxStatements);
+    }
+}
@@ -0,0 +1,78 @@
+package com.tiagomaniero.essentials.wrapper;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.tiagomaniero.essentials.domain.Anime;
+import com.tiagomaniero.essentials.util.AnimeCreator;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.io.IOException;
+import java.util.List;
+
+class PageJsonSerializerTest {
+    private final Page<Anime> page = new PageImpl<>(List.of(AnimeCreator.createValidAnime()),
+            PageRequest.of(1, 5, Sort.by("name")), 6);
+
+    @Test
+    @DisplayName("Serialize writes the page numbers without pageable and sort when successful")
+    void serializeWritesPageNumbersWithoutPageableAndSortWhenSuccessful() throws IOException {
+        ObjectMapper mapper = mapper(new ObjectMapper());
+
+        JsonNode json = mapper.readTree(mapper.writeValueAsString(page));
+
+        Assertions.assertThat(json.has("pageable")).isFalse();
+        Assertions.assertThat(json.has("sort")).isFalse();
+        Assertions.assertThat(json.get("content")).hasSize(1);
+        Assertions.assertThat(json.get("number").asInt()).isEqualTo(1);
+        Assertions.assertThat(json.get("totalElements").asLong()).isEqualTo(6);
+        Assertions.assertThat(json.get("totalPages").asInt()).isEqualTo(2);
+        Assertions.assertThat(json.get("last").asBoolean()).isTrue();
+
+    }
+
+    @Test
+    @DisplayName("Serialize round trips through Smile into PageableResponse when successful")
+    void serializeRoundTripsThroughSmileIntoPageableResponseWhenSuccessful() throws IOException {
+        ObjectMapper mapper = mapper(new ObjectMapper(new SmileFactory()));
+
+        PageableResponse<Anime> response = mapper.readValue(mapper.writeValueAsBytes(page),
+                new TypeReference<PageableResponse<Anime>>() {});
+
+        Assertions.assertThat(response.getContent()).containsExactly(AnimeCreator.createValidAnime());
+        Assertions.assertThat(response.getNumber()).isEqualTo(1);
+        Assertions.assertThat(response.getTotalElements()).isEqualTo(6);
+        Assertions.assertThat(response.isLast()).isTrue();
+
+    }
+
+    @Test
+    @DisplayName("PageableResponse still reads the Spring Data page shape with pageable and sort")
+    void pageableResponseReadsSpringDataPageShapeWithPageableAndSort() throws IOException {
+        String json = "{\"content\":[{\"id\":1,\"name\":\"Boku no Hero\"}],"
+                + "\"pageable\":{\"pageNumber\":1,\"pageSize\":5},\"sort\":{\"sorted\":true},"
+                + "\"number\":1,\"size\":5,\"numberOfElements\":1,\"totalElements\":6,\"totalPages\":2,"
+                + "\"first\":false,\"last\":true}";
+
+        PageableResponse<Anime> response = new ObjectMapper().readValue(json,
+                new TypeReference<PageableResponse<Anime>>() {});
+
+        Assertions.assertThat(response.getContent()).hasSize(1);
+        Assertions.assertThat(response.getNumber()).isEqualTo(1);
+        Assertions.assertThat(response.getTotalElements()).isEqualTo(6);
+        Assertions.assertThat(response.isLast()).isTrue();
+
+    }
+
+    private static ObjectMapper mapper(ObjectMapper mapper){
+        return mapper.registerModule(new SimpleModule().addSerializer(new PageJsonSerializer()));
+    }
+}
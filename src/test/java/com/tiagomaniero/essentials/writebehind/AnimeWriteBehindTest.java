@@ -0,0 +1,171 @@
+package com.tiagomaniero.essentials.writebehind;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tiagomaniero.essentials.config.AnimeProperties;
+import com.tiagomaniero.essentials.domain.Anime;
+import com.tiagomaniero.essentials.domain.WriteBehindCheckpoint;
+import com.tiagomaniero.essentials.event.AnimeChangedEvent;
+import com.tiagomaniero.essentials.exception.WriteBehindPendingException;
+import com.tiagomaniero.essentials.repository.AnimeBatchRepository;
+import com.tiagomaniero.essentials.repository.WriteBehindCheckpointRepository;
+import com.tiagomaniero.essentials.requests.AnimePostRequestBody;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.BDDMockito;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+@ExtendWith(SpringExtension.class)
+class AnimeWriteBehindTest {
+
+    @TempDir
+    Path directory;
+
+    @Mock
+    private AnimeBatchRepository animeBatchRepositoryMock;
+
+    @Mock
+    private WriteBehindCheckpointRepository writeBehindCheckpointRepositoryMock;
+
+    @Mock
+    private PlatformTransactionManager transactionManagerMock;
+
+    @Mock
+    private ApplicationEventPublisher applicationEventPublisherMock;
+
+    private AnimeProperties animeProperties;
+    private AnimeWriteBehind animeWriteBehind;
+
+    @BeforeEach
+    void setUp(){
+        animeProperties = new AnimeProperties();
+        animeProperties.getWriteBehind().setEnabled(true);
+        animeProperties.getWriteBehind().setJournalDirectory(directory.toString());
+        animeProperties.getWriteBehind().setBatchSize(2);
+        animeProperties.getWriteBehind().setFlushInterval(Duration.ofHours(1));
+        BDDMockito.when(animeBatchRepositoryMock.insertAll(ArgumentMatchers.anyList()))
+                .thenAnswer(invocation -> LongStream.rangeClosed(1, invocation.<List<?>>getArgument(0).size())
+                        .boxed()
+                        .collect(Collectors.toList()));
+        BDDMockito.when(writeBehindCheckpointRepositoryMock.findById(ArgumentMatchers.anyString()))
+                .thenReturn(Optional.empty());
+        animeWriteBehind = new AnimeWriteBehind(animeProperties, animeBatchRepositoryMock,
+                writeBehindCheckpointRepositoryMock, new TransactionTemplate(transactionManagerMock),
+                applicationEventPublisherMock, new ObjectMapper(), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown(){
+        if (animeWriteBehind.isRunning()) {
+            animeWriteBehind.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Submit completes the saves once a full batch is inserted and checkpointed")
+    void submitCompletesSavesOnceFullBatchIsInserted(){
+        animeWriteBehind.start();
+
+        AnimeWriteBehind.Accepted first = animeWriteBehind.submit(new AnimePostRequestBody("Hellsing"));
+        AnimeWriteBehind.Accepted second = animeWriteBehind.submit(new AnimePostRequestBody("Overlord"));
+
+        Assertions.assertThat(first.getSaved().join()).extracting(Anime::getId, Anime::getName)
+                .containsExactly(1L, "Hellsing");
+        Assertions.assertThat(second.getSaved().join()).extracting(Anime::getId, Anime::getName)
+                .containsExactly(2L, "Overlord");
+        ArgumentCaptor<WriteBehindCheckpoint> checkpoint = ArgumentCaptor.forClass(WriteBehindCheckpoint.class);
+        BDDMockito.verify(writeBehindCheckpointRepositoryMock).save(checkpoint.capture());
+        Assertions.assertThat(checkpoint.getValue().getLastTicket()).isEqualTo(second.getTicket());
+        BDDMockito.verify(applicationEventPublisherMock, Mockito.times(2))
+                .publishEvent(ArgumentMatchers.any(AnimeChangedEvent.class));
+
+    }
+
+    @Test
+    @DisplayName("Submit throws RejectedExecutionException when the queue is full")
+    void submitThrowsRejectedExecutionExceptionWhenQueueIsFull(){
+        animeProperties.getWriteBehind().setQueueCapacity(1);
+        animeWriteBehind.start();
+
+        animeWriteBehind.submit(new AnimePostRequestBody("Hellsing"));
+
+        Assertions.assertThatExceptionOfType(RejectedExecutionException.class)
+                .isThrownBy(() -> animeWriteBehind.submit(new AnimePostRequestBody("Overlord")));
+
+    }
+
+    @Test
+    @DisplayName("Stop flushes the queued saves before the batch is full")
+    void stopFlushesQueuedSaves(){
+        animeWriteBehind.start();
+        AnimeWriteBehind.Accepted accepted = animeWriteBehind.submit(new AnimePostRequestBody("Hellsing"));
+
+        animeWriteBehind.stop();
+
+        Assertions.assertThat(accepted.getSaved()).isCompleted();
+        BDDMockito.verify(animeBatchRepositoryMock).insertAll(ArgumentMatchers.anyList());
+
+    }
+
+    @Test
+    @DisplayName("Stop completes saves the database did not take with WriteBehindPendingException, not a retryable rejection")
+    void stopCompletesUninsertedSavesWithWriteBehindPendingException(){
+        BDDMockito.when(animeBatchRepositoryMock.insertAll(ArgumentMatchers.anyList()))
+                .thenThrow(new DataAccessResourceFailureException("database is down"));
+        animeWriteBehind.start();
+        AnimeWriteBehind.Accepted accepted = animeWriteBehind.submit(new AnimePostRequestBody("Hellsing"));
+
+        animeWriteBehind.stop();
+
+        Assertions.assertThatThrownBy(() -> accepted.getSaved().join())
+                .hasCauseInstanceOf(WriteBehindPendingException.class)
+                .getCause()
+                .extracting("ticket")
+                .isEqualTo(accepted.getTicket());
+
+    }
+
+    @Test
+    @DisplayName("Start replays only the journaled saves after the checkpoint")
+    void startReplaysJournaledSavesAfterCheckpoint() throws Exception {
+        String journalId;
+        try (WriteBehindJournal journal = new WriteBehindJournal(directory)) {
+            journal.open(0);
+            journal.append("{\"name\":\"Hellsing\"}", ticket -> {});
+            journal.append("{\"name\":\"Overlord\"}", ticket -> {});
+            journalId = journal.getId();
+        }
+        BDDMockito.when(writeBehindCheckpointRepositoryMock.findById(journalId))
+                .thenReturn(Optional.of(new WriteBehindCheckpoint(journalId, 1L)));
+
+        animeWriteBehind.start();
+        animeWriteBehind.stop();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Anime>> inserted = ArgumentCaptor.forClass(List.class);
+        BDDMockito.verify(animeBatchRepositoryMock).insertAll(inserted.capture());
+        Assertions.assertThat(inserted.getValue()).extracting(Anime::getName).containsExactly("Overlord");
+
+    }
+}
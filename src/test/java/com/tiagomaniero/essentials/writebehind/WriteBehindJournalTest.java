@@ -0,0 +1,96 @@
+package com.tiagomaniero.essentials.writebehind;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+
+class WriteBehindJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Open returns the records after the last committed ticket")
+    void openReturnsRecordsAfterLastCommittedTicket() throws IOException {
+        try (WriteBehindJournal journal = new WriteBehindJournal(directory)) {
+            journal.open(0);
+            journal.append("Hellsing", ticket -> {});
+            journal.append("Overlord", ticket -> {});
+            journal.append("Berserk", ticket -> {});
+        }
+
+        try (WriteBehindJournal journal = new WriteBehindJournal(directory)) {
+            List<WriteBehindJournal.Record> records = journal.open(1);
+
+            Assertions.assertThat(payloads(records)).containsExactly("Overlord", "Berserk");
+            Assertions.assertThat(journal.append("Naruto", ticket -> {})).isEqualTo(4);
+        }
+
+    }
+
+    @Test
+    @DisplayName("Open truncates a torn record at the tail")
+    void openTruncatesTornTail() throws IOException {
+        try (WriteBehindJournal journal = new WriteBehindJournal(directory)) {
+            journal.open(0);
+            journal.append("Hellsing", ticket -> {});
+        }
+        Path log = directory.resolve("journal.log");
+        long intact = Files.size(log);
+        Files.write(log, new byte[]{0, 0, 0, 20, 0, 0}, StandardOpenOption.APPEND);
+
+        try (WriteBehindJournal journal = new WriteBehindJournal(directory)) {
+            Assertions.assertThat(payloads(journal.open(0))).containsExactly("Hellsing");
+            Assertions.assertThat(Files.size(log)).isEqualTo(intact);
+        }
+
+    }
+
+    @Test
+    @DisplayName("Truncate if committed empties the journal only when every ticket is committed and keeps the tickets increasing")
+    void truncateIfCommittedEmptiesJournalOnlyWhenEverythingIsCommitted() throws IOException {
+        Path log = directory.resolve("journal.log");
+        try (WriteBehindJournal journal = new WriteBehindJournal(directory)) {
+            journal.open(0);
+            journal.append("Hellsing", ticket -> {});
+            journal.append("Overlord", ticket -> {});
+
+            journal.truncateIfCommitted(1);
+            Assertions.assertThat(Files.size(log)).isPositive();
+
+            journal.truncateIfCommitted(2);
+            Assertions.assertThat(Files.size(log)).isZero();
+            Assertions.assertThat(journal.append("Berserk", ticket -> {})).isEqualTo(3);
+        }
+
+    }
+
+    @Test
+    @DisplayName("The journal id survives a reopen")
+    void journalIdSurvivesReopen() throws IOException {
+        String id;
+        try (WriteBehindJournal journal = new WriteBehindJournal(directory)) {
+            id = journal.getId();
+        }
+
+        try (WriteBehindJournal journal = new WriteBehindJournal(directory)) {
+            Assertions.assertThat(journal.getId()).isNotBlank().isEqualTo(id);
+        }
+
+    }
+
+    private static List<String> payloads(List<WriteBehindJournal.Record> records) {
+        return records.stream()
+                .map(record -> new String(record.getPayload(), StandardCharsets.UTF_8))
+                .collect(Collectors.toList());
+    }
+}